@@ -67,28 +67,47 @@ public class EncryptCardAspect {
 
 
     private void encryptCard(Card card) {
-        if (card.getCardNumber() != null && !card.getCardNumber().isBlank()) {
-            card.setEncryptedCardNumber(encryptor.encrypt(card.getCardNumber()));
+        if (cardNumberNeedsEncryption(card)) {
+            var cardNumber = card.getCardNumber();
 
-            if (card.getLast4() == null || card.getLast4().isBlank()) {
-                card.setLast4(card.getCardNumber().substring(card.getCardNumber().length() - 4));
+            if (cardNumber != null && !cardNumber.isBlank()) {
+                card.setEncryptedCardNumber(encryptor.encrypt(cardNumber));
+                card.setCardNumberHash(encryptor.blindIndex(cardNumber));
+
+                if (card.getLast4() == null || card.getLast4().isBlank()) {
+                    card.setLast4(cardNumber.substring(cardNumber.length() - 4));
+                }
             }
         }
 
-        if (card.getPlaceholder() != null && !card.getPlaceholder().isBlank()) {
-            card.setEncryptedPlaceholder(encryptor.encrypt(card.getPlaceholder()));
+        if (card.isPlaceholderChanged() || isOutdated(card.getEncryptedPlaceholder())) {
+            var placeholder = card.getPlaceholder();
+
+            if (placeholder != null && !placeholder.isBlank()) {
+                card.setEncryptedPlaceholder(encryptor.encrypt(placeholder));
+            }
         }
+
+        card.clearPlaintextChanges();
     }
 
 
-    private void decryptCard(Card card) {
+    private boolean cardNumberNeedsEncryption(Card card) {
+        if (isOutdated(card.getEncryptedCardNumber()) || card.getCardNumberHash() == null)
+            return true;
 
-        if (card.getEncryptedCardNumber() != null) {
-            card.setCardNumber(encryptor.decrypt(card.getEncryptedCardNumber()));
-        }
+        return card.isCardNumberChanged()
+                && card.getCardNumber() != null
+                && !encryptor.blindIndex(card.getCardNumber()).equals(card.getCardNumberHash());
+    }
 
-        if (card.getEncryptedPlaceholder() != null) {
-            card.setPlaceholder(encryptor.decrypt(card.getEncryptedPlaceholder()));
-        }
+
+    private boolean isOutdated(String encrypted) {
+        return encrypted == null || !encryptor.isCurrent(encrypted);
+    }
+
+
+    private void decryptCard(Card card) {
+        card.setDecryptor(encryptor::decrypt);
     }
 }
\ No newline at end of file
@@ -1,10 +1,20 @@
 package com.example.bankcards.config;
 
+import com.example.bankcards.filter.IdempotencyFilter;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.BoundedPasswordEncoder;
 import com.example.bankcards.security.JwtAuthenticationFilter;
 import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.PrincipalCache;
+import com.example.bankcards.security.RevokedUserRegistry;
+import com.example.bankcards.security.VerifiedTokenCache;
+import com.example.bankcards.service.IdempotencyService;
+import com.example.bankcards.util.BcryptStrengthCalibrator;
 import com.example.bankcards.util.UserDetailsBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -15,18 +25,29 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(securedEnabled = true)
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final IdempotencyService idempotencyService;
+    private final PrincipalCache principalCache;
+    private final RevokedUserRegistry revokedUserRegistry;
+    private final VerifiedTokenCache verifiedTokenCache;
 
 
     @Bean
@@ -43,26 +64,45 @@ public class SecurityConfig {
                 .sessionManagement(manager ->
                         manager.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new IdempotencyFilter(idempotencyService), AuthorizationFilter.class)
                 .build();
     }
 
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService, userDetailsService(userRepository));
+        return new JwtAuthenticationFilter(jwtService, verifiedTokenCache, userDetailsService(userRepository), revokedUserRegistry);
     }
 
 
     @Bean
     public UserDetailsService userDetailsService(UserRepository userRepository) {
-        return phoneNumber -> userRepository.getUserByPhoneNumber(phoneNumber)
+        return phoneNumber -> principalCache.get(phoneNumber, key -> userRepository.getUserByPhoneNumber(key)
                 .map(UserDetailsBuilder::buildUserDetails)
-                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден"));
+                .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден")));
     }
 
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${security.password-hashing.threads}") int threads,
+                                           @Value("${security.password-hashing.queue-capacity}") int queueCapacity,
+                                           @Value("${security.password-hashing.bcrypt.strength}") int strength,
+                                           @Value("${security.password-hashing.bcrypt.target-latency}") Duration targetLatency,
+                                           @Value("${security.password-hashing.bcrypt.min-strength}") int minStrength,
+                                           @Value("${security.password-hashing.bcrypt.max-strength}") int maxStrength) {
+        var bcryptStrength = strength > 0
+                ? strength
+                : BcryptStrengthCalibrator.calibrate(targetLatency, minStrength, maxStrength);
+
+        Gauge.builder("password.hash.bcrypt.strength", () -> bcryptStrength)
+                .strongReference(true)
+                .register(meterRegistry);
+
+        var bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        var delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return new BoundedPasswordEncoder(delegating, threads, queueCapacity, meterRegistry);
     }
 }
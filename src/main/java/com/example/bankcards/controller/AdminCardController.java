@@ -1,21 +1,30 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.card.CardIssuanceBatchDto;
+import com.example.bankcards.dto.card.CardIssuanceBatchResponseDto;
 import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.card.CursorPageCardResponseDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.CardIssuanceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -29,9 +38,11 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @RequestMapping("api/v1/admin/cards")
 @RequiredArgsConstructor
+@Validated
 public class AdminCardController {
 
     private final AdminCardService adminCardService;
+    private final CardIssuanceService cardIssuanceService;
 
 
     @Operation(summary = "Выпустить новую карту ")
@@ -42,6 +53,16 @@ public class AdminCardController {
     }
 
 
+    @Operation(summary = "Пакетный выпуск карт (до 100000 пользователей за запрос, по одной карте каждому)")
+    @ApiResponse(responseCode = "200", description = "Количество выпущенных и отклоненных карт по каждой порции пакета")
+    @PostMapping("/batch")
+    public ResponseEntity<CardIssuanceBatchResponseDto> issueCards(@Valid @RequestBody CardIssuanceBatchDto batchDto) {
+        var response = cardIssuanceService.issueCards(batchDto);
+
+        return ResponseEntity.ok(response);
+    }
+
+
     @Operation(summary = "Заблокировать карту, если был запрос от пользователя (статус \"REQUESTED_BLOCKED\")")
     @ApiResponse(responseCode = "200", description = "Карта успешно заблокирована")
     @PatchMapping("/{id}/block")
@@ -75,15 +96,33 @@ public class AdminCardController {
     @Operation(summary = "Получить список всех карт (с пагинацией)")
     @ApiResponse(responseCode = "200", description = "Список карт")
     @GetMapping
-    public PageCardResponseDto viewAllCards(Pageable pageable) {
-        return adminCardService.getAllCards(pageable);
+    public PageCardResponseDto viewAllCards(Pageable pageable,
+                                            @RequestParam(defaultValue = "true") boolean withTotal,
+                                            @RequestParam(defaultValue = "false") boolean approximateTotal) {
+        return adminCardService.getAllCards(pageable, withTotal, approximateTotal);
+    }
+
+
+    @Operation(summary = "Получить список всех карт по курсору (без подсчета общего количества)")
+    @ApiResponse(responseCode = "200", description = "Список карт и курсор следующей страницы")
+    @GetMapping("/cursor")
+    public CursorPageCardResponseDto viewAllCardsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50")
+            @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = 1000, message = "Размер страницы должен быть не больше 1000")
+            int size
+    ) {
+        return adminCardService.getAllCardsAfter(after, size);
     }
 
 
     @Operation(summary = "Получить список карт (с пагинацией) конкретного пользователя (по ID)")
     @ApiResponse(responseCode = "200", description = "Список карт пользователя")
     @GetMapping("/user/{id}")
-    public PageCardResponseDto viewUserCards(@PathVariable Long id, Pageable pageable) {
-        return adminCardService.getUserCards(id, pageable);
+    public PageCardResponseDto viewUserCards(@PathVariable Long id,
+                                             Pageable pageable,
+                                             @RequestParam(defaultValue = "true") boolean withTotal) {
+        return adminCardService.getUserCards(id, pageable, withTotal);
     }
 }
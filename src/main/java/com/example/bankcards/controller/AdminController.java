@@ -1,5 +1,6 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.user.CursorPageUserResponseDto;
 import com.example.bankcards.dto.user.PageUserResponseDto;
 import com.example.bankcards.dto.user.UserResponseDto;
 import com.example.bankcards.dto.user.UserUpdateRequestDto;
@@ -10,6 +11,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
@@ -42,8 +45,24 @@ public class AdminController {
     @Operation(summary = "Получить список пользователей с пагинацией")
     @ApiResponse(responseCode = "200", description = "Список пользователей")
     @GetMapping
-    public PageUserResponseDto getAllUsers(Pageable pageable) {
-        return userService.getAllUsers(pageable);
+    public PageUserResponseDto getAllUsers(Pageable pageable,
+                                           @RequestParam(defaultValue = "true") boolean withTotal,
+                                           @RequestParam(defaultValue = "false") boolean approximateTotal) {
+        return userService.getAllUsers(pageable, withTotal, approximateTotal);
+    }
+
+
+    @Operation(summary = "Получить список пользователей по курсору (без подсчета общего количества)")
+    @ApiResponse(responseCode = "200", description = "Список пользователей и курсор следующей страницы")
+    @GetMapping("/cursor")
+    public CursorPageUserResponseDto getAllUsersAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "50")
+            @Min(value = 1, message = "Размер страницы должен быть не меньше 1")
+            @Max(value = 1000, message = "Размер страницы должен быть не больше 1000")
+            int size
+    ) {
+        return userService.getAllUsersAfter(after, size);
     }
 
 
@@ -4,6 +4,8 @@ import com.example.bankcards.dto.card.FundsDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.dto.card.RequestCardBlockDto;
 import com.example.bankcards.dto.card.ResponseCardBlockDto;
+import com.example.bankcards.dto.card.TransferBatchDto;
+import com.example.bankcards.dto.card.TransferBatchResponseDto;
 import com.example.bankcards.dto.card.TransferDto;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.security.CustomUserDetails;
@@ -120,6 +122,19 @@ public class UserCardController {
     }
 
 
+    @Operation(summary = "Пакетный перевод между своими картами (до 1000 переводов за запрос)")
+    @ApiResponse(responseCode = "200", description = "Результаты переводов по каждой позиции пакета")
+    @PatchMapping("/transfer/batch")
+    public ResponseEntity<TransferBatchResponseDto> transferBatch(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody TransferBatchDto batchDto
+    ) {
+        var response = userCardService.transferBatch(userDetails.userId(), batchDto);
+
+        return ResponseEntity.ok(response);
+    }
+
+
     @Operation(summary = "Запросить блокировку карты")
     @ApiResponse(responseCode = "200", description = "Блокировка запрошена")
     @PatchMapping("/cards/{cardId}/block")
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Пакетный запрос на выпуск карт")
+public record CardIssuanceBatchDto(
+
+        @Schema(description = "Список ID пользователей (от 1 до 100000), каждому выпускается по одной карте")
+        @NotEmpty(message = "Список пользователей не может быть пустым")
+        @Size(max = 100_000, message = "За один запрос можно выпустить не более 100000 карт")
+        List<@NotNull(message = "ID пользователя не может быть пустым") Long> userIds
+) {
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Schema(description = "Ответ на пакетный выпуск карт")
+@Builder
+public record CardIssuanceBatchResponseDto(
+
+        @Schema(description = "Количество выпущенных карт", example = "49998")
+        Integer issued,
+
+        @Schema(description = "Количество отклоненных позиций", example = "2")
+        Integer failed,
+
+        @Schema(description = "Результаты по каждой порции пакета в порядке обработки")
+        List<CardIssuanceChunkDto> chunks
+) {
+}
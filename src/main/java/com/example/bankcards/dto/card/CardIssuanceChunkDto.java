@@ -0,0 +1,24 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Schema(description = "Результат выпуска карт для одной порции пакета")
+@Builder
+public record CardIssuanceChunkDto(
+
+        @Schema(description = "Порядковый номер порции в пакете", example = "0")
+        Integer index,
+
+        @Schema(description = "Количество выпущенных карт", example = "499")
+        Integer issued,
+
+        @Schema(description = "Количество отклоненных позиций", example = "1")
+        Integer failed,
+
+        @Schema(description = "ID пользователей, которым карта не выпущена (не найден, администратор или ошибка порции)")
+        List<Long> failedUserIds
+) {
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Schema(description = "Вывод списка карт по курсору, без подсчета общего количества")
+@Builder
+public record CursorPageCardResponseDto(
+
+        @Schema(description = "Данные карт на текущей странице")
+        List<CardResponseDto> content,
+
+        @Schema(description = "Количество выводимых карт на странице", example = "50")
+        Integer size,
+
+        @Schema(description = "Курсор следующей страницы (null, если страница последняя)", example = "MTAyNA")
+        String next
+) {
+}
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Пакетный запрос на переводы между своими картами")
+public record TransferBatchDto(
+
+        @Schema(description = "Список переводов (от 1 до 1000), выполняются в порядке перечисления")
+        @NotEmpty(message = "Список переводов не может быть пустым")
+        @Size(max = 1000, message = "За один запрос можно выполнить не более 1000 переводов")
+        List<@Valid TransferDto> transfers
+) {
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Schema(description = "Ответ на пакетный перевод между своими картами")
+@Builder
+public record TransferBatchResponseDto(
+
+        @Schema(description = "Количество выполненных переводов", example = "998")
+        Integer succeeded,
+
+        @Schema(description = "Количество отклоненных переводов", example = "2")
+        Integer failed,
+
+        @Schema(description = "Результаты переводов в порядке запроса")
+        List<TransferResultDto> results
+) {
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.dto.card;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Результат одного перевода из пакета")
+@Builder
+public record TransferResultDto(
+
+        @Schema(description = "Порядковый номер перевода в пакете", example = "0")
+        Integer index,
+
+        @Schema(description = "ID карты отправителя", example = "1")
+        Long from,
+
+        @Schema(description = "ID карты получателя", example = "2")
+        Long to,
+
+        @Schema(description = "Сумма перевода", example = "999.99")
+        BigDecimal funds,
+
+        @Schema(description = "Выполнен ли перевод (true/false)", example = "true")
+        Boolean success,
+
+        @Schema(description = "Результат или причина отказа", example = "Перевод выполнен")
+        String message
+) {
+}
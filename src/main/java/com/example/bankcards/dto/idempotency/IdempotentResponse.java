@@ -0,0 +1,11 @@
+package com.example.bankcards.dto.idempotency;
+
+import lombok.Builder;
+
+@Builder
+public record IdempotentResponse(
+        int statusCode,
+        String contentType,
+        String body
+) {
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto.user;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Schema(description = "Вывод списка пользователей по курсору, без подсчета общего количества")
+@Builder
+public record CursorPageUserResponseDto(
+
+        @Schema(description = "Список пользователей на текущей странице")
+        List<UserResponseDto> content,
+
+        @Schema(description = "Количество выводимых пользователей на странице", example = "50")
+        Integer size,
+
+        @Schema(description = "Курсор следующей страницы (null, если страница последняя)", example = "MTAyNA")
+        String next
+) {
+}
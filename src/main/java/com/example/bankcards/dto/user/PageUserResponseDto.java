@@ -18,13 +18,17 @@ public record PageUserResponseDto(
         @Schema(description = "Количество выводимых пользователей на странице", example = "3")
         Integer size,
 
-        @Schema(description = "Общее количество страниц", example = "25")
+        @Schema(description = "Общее количество страниц (null, если запрошено без подсчета)", example = "25")
         Integer totalPages,
 
-        @Schema(description = "Общее количество зарегистрированных пользователей", example = "56354")
+        @Schema(description = "Общее количество зарегистрированных пользователей (null, если запрошено без подсчета)", example = "56354")
         Long totalElements,
 
         @Schema(description = "Является ли выводимая страница последней (true/false)", example = "false")
-        Boolean last
+        Boolean last,
+
+        @Schema(description = "Общее количество получено по статистике БД и является приблизительным (true/false)",
+                example = "false")
+        Boolean approximateTotal
 ) {
 }
@@ -11,14 +11,17 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Formula;
 import org.hibernate.proxy.HibernateProxy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -28,6 +31,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 
 @Entity
 @Table(name = "cards")
@@ -41,16 +45,20 @@ import java.util.Objects;
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+    @SequenceGenerator(name = "cards_id_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "encrypted_card_number", nullable = false)
+    @Column(name = "encrypted_card_number", nullable = false, length = 1024)
     private String encryptedCardNumber;
 
+    @Column(name = "card_number_hash", unique = true, length = 64)
+    private String cardNumberHash;
+
     @Column(name = "last4", nullable = false, length = 4)
     private String last4;
 
-    @Column(name = "encrypted_placeholder", nullable = false)
+    @Column(name = "encrypted_placeholder", nullable = false, length = 1024)
     private String encryptedPlaceholder;
 
     @Column(name = "expiration_date", nullable = false)
@@ -63,6 +71,9 @@ public class Card {
     @Column(nullable = false, precision = 14, scale = 2)
     private BigDecimal balance;
 
+    @Formula("(select coalesce(sum(e.amount), 0) from card_ledger_entries e where e.card_id = id and e.applied = false)")
+    private BigDecimal pendingAmount;
+
     @Column(name = "created_at")
     @CreatedDate
     private LocalDateTime createdAt;
@@ -77,11 +88,66 @@ public class Card {
     private User user;
 
     @Transient
+    @ToString.Exclude
     private String cardNumber;
 
     @Transient
+    @ToString.Exclude
     private String placeholder;
 
+    @Transient
+    @ToString.Exclude
+    private UnaryOperator<String> decryptor;
+
+    @Transient
+    @ToString.Exclude
+    @Setter(AccessLevel.NONE)
+    private boolean cardNumberChanged;
+
+    @Transient
+    @ToString.Exclude
+    @Setter(AccessLevel.NONE)
+    private boolean placeholderChanged;
+
+
+    public String getCardNumber() {
+        if (cardNumber == null && encryptedCardNumber != null && decryptor != null)
+            cardNumber = decryptor.apply(encryptedCardNumber);
+
+        return cardNumber;
+    }
+
+
+    public String getPlaceholder() {
+        if (placeholder == null && encryptedPlaceholder != null && decryptor != null)
+            placeholder = decryptor.apply(encryptedPlaceholder);
+
+        return placeholder;
+    }
+
+
+    public void setCardNumber(String cardNumber) {
+        this.cardNumber = cardNumber;
+        this.cardNumberChanged = true;
+    }
+
+
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder;
+        this.placeholderChanged = true;
+    }
+
+
+    public void clearPlaintextChanges() {
+        cardNumberChanged = false;
+        placeholderChanged = false;
+    }
+
+
+    public BigDecimal getAvailableBalance() {
+        return pendingAmount == null ? balance : balance.add(pendingAmount);
+    }
+
 
     @Override
     public final boolean equals(Object o) {
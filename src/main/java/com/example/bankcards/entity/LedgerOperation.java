@@ -0,0 +1,8 @@
+package com.example.bankcards.entity;
+
+public enum LedgerOperation {
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER_IN,
+    TRANSFER_OUT
+}
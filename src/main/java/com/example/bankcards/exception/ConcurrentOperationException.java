@@ -0,0 +1,10 @@
+package com.example.bankcards.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class ConcurrentOperationException extends BaseCustomException {
+
+    public ConcurrentOperationException(String message) {
+        super(message, HttpStatus.CONFLICT);
+    }
+}
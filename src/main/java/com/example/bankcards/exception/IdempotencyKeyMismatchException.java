@@ -0,0 +1,10 @@
+package com.example.bankcards.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class IdempotencyKeyMismatchException extends BaseCustomException {
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+}
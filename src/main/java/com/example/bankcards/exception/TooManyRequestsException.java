@@ -0,0 +1,10 @@
+package com.example.bankcards.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TooManyRequestsException extends BaseCustomException {
+
+    public TooManyRequestsException(String message) {
+        super(message, HttpStatus.TOO_MANY_REQUESTS);
+    }
+}
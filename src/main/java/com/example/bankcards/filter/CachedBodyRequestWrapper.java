@@ -0,0 +1,74 @@
+package com.example.bankcards.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+public class CachedBodyRequestWrapper extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+
+    public CachedBodyRequestWrapper(HttpServletRequest request) throws IOException {
+        super(request);
+        this.body = request.getInputStream().readAllBytes();
+    }
+
+
+    public byte[] getBody() {
+        return body;
+    }
+
+
+    @Override
+    public ServletInputStream getInputStream() {
+        var input = new ByteArrayInputStream(body);
+
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return input.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                try {
+                    if (!isFinished())
+                        listener.onDataAvailable();
+
+                    if (isFinished())
+                        listener.onAllDataRead();
+                } catch (IOException e) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() {
+                return input.read();
+            }
+        };
+    }
+
+
+    @Override
+    public BufferedReader getReader() {
+        var encoding = getCharacterEncoding();
+        var charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.bankcards.filter;
+
+import com.example.bankcards.dto.idempotency.IdempotentResponse;
+import com.example.bankcards.exception.BaseCustomException;
+import com.example.bankcards.security.CustomUserDetails;
+import com.example.bankcards.service.IdempotencyService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Pattern MONEY_OPERATIONS = Pattern.compile(
+            "^/api/v1/users/cards/(balance/\\d+/(deposit|withdraw)|transfer(/batch)?)$");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(
+            HttpStatus.CONFLICT.value(), HttpStatus.TOO_MANY_REQUESTS.value());
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyService idempotencyService;
+
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !"PATCH".equals(request.getMethod())
+                || !MONEY_OPERATIONS.matcher(request.getRequestURI()).matches();
+    }
+
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails userDetails)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        var key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "Заголовок Idempotency-Key должен содержать от 1 до %d символов".formatted(MAX_KEY_LENGTH));
+            return;
+        }
+
+        var cachedRequest = new CachedBodyRequestWrapper(request);
+        var requestHash = hash(request.getMethod(), request.getRequestURI(), cachedRequest.getBody());
+        var userId = userDetails.userId();
+
+        try {
+            var stored = idempotencyService.begin(userId, key, requestHash);
+
+            if (stored.isPresent()) {
+                replay(response, stored.get());
+                return;
+            }
+        } catch (BaseCustomException ex) {
+            writeError(response, ex.getErrorCode(), ex.getMessage());
+            return;
+        }
+
+        var cachedResponse = new ContentCachingResponseWrapper(response);
+        var executed = false;
+
+        try {
+            filterChain.doFilter(cachedRequest, cachedResponse);
+
+            var status = cachedResponse.getStatus();
+            executed = status < 500 && !RETRYABLE_STATUSES.contains(status);
+
+            if (executed) {
+                idempotencyService.complete(userId, key, requestHash, IdempotentResponse.builder()
+                        .statusCode(status)
+                        .contentType(cachedResponse.getContentType())
+                        .body(new String(cachedResponse.getContentAsByteArray(), StandardCharsets.UTF_8))
+                        .build());
+            }
+        } finally {
+            if (!executed)
+                idempotencyService.release(userId, key);
+
+            cachedResponse.copyBodyToResponse();
+        }
+    }
+
+
+    private void replay(HttpServletResponse response, IdempotentResponse stored) throws IOException {
+        response.setStatus(stored.statusCode());
+        response.setHeader(REPLAYED_HEADER, "true");
+
+        if (stored.contentType() != null)
+            response.setContentType(stored.contentType());
+
+        if (stored.body() != null)
+            response.getOutputStream().write(stored.body().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(message);
+    }
+
+
+    private String hash(String method, String uri, byte[] body) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + " " + uri + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
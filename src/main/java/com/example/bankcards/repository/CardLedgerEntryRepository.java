@@ -0,0 +1,90 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.repository.projection.PendingTotal;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CardLedgerEntryRepository extends JpaRepository<CardLedgerEntry, Long> {
+
+    @Query("""
+            select distinct e.cardId
+            from CardLedgerEntry e
+            where e.applied = false
+            order by e.cardId
+            """)
+    List<Long> findCardIdsWithPendingEntries(Limit limit);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into card_ledger_entries (card_id, operation, amount, applied, created_at)
+            select c.id, :operation, :amount, false, now()
+            from cards c
+            where c.id = :cardId
+              and c.user_id = :userId
+              and c.status not in ('BLOCKED', 'EXPIRED')
+              and c.expiration_date >= current_date
+            """, nativeQuery = true)
+    int appendCredit(@Param("cardId") Long cardId,
+                     @Param("userId") Long userId,
+                     @Param("amount") BigDecimal amount,
+                     @Param("operation") String operation);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into card_ledger_entries (card_id, operation, amount, applied, created_at)
+            select e.card_id, e.operation, e.amount, e.applied, now()
+            from unnest(cast(:cardIds as bigint[]),
+                        cast(:operations as varchar[]),
+                        cast(:amounts as numeric[]),
+                        cast(:applied as boolean[])) as e(card_id, operation, amount, applied)
+            """, nativeQuery = true)
+    int appendEntries(@Param("cardIds") Long[] cardIds,
+                      @Param("operations") String[] operations,
+                      @Param("amounts") BigDecimal[] amounts,
+                      @Param("applied") Boolean[] applied);
+
+
+    @Transactional
+    @Query(value = """
+            with moved as (
+                update card_ledger_entries
+                set applied = true
+                where card_id = :cardId and applied = false
+                returning amount
+            )
+            update cards
+            set balance = balance + (select coalesce(sum(amount), 0) from moved)
+            where id = :cardId
+            returning balance
+            """, nativeQuery = true)
+    Optional<BigDecimal> compact(@Param("cardId") Long cardId);
+
+
+    @Transactional
+    @Query(value = """
+            with moved as (
+                update card_ledger_entries
+                set applied = true
+                where card_id in (:cardIds) and applied = false
+                returning card_id, amount
+            )
+            select card_id as "cardId", sum(amount) as "amount"
+            from moved
+            group by card_id
+            """, nativeQuery = true)
+    List<PendingTotal> applyPendingEntries(@Param("cardIds") Collection<Long> cardIds);
+}
@@ -1,28 +1,137 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
-import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardSearchRepository {
 
-    boolean existsByEncryptedCardNumber(String cardNumber);
+    @Query(value = "select nextval('card_number_seq')", nativeQuery = true)
+    long nextCardNumberSequence();
 
 
-    @Query("from Card c where c.user.id = :userId")
-    Page<Card> findCardsByUserId(@Param("userId") Long userId, Pageable pageable);
+    @Query(value = "select nextval('card_number_seq') from generate_series(1, :count)", nativeQuery = true)
+    List<Long> nextCardNumberSequences(@Param("count") int count);
 
 
     @Query("""
-            select c.balance
+            select c.id
+            from Card c
+            where c.id > :afterId
+              and (c.cardNumberHash is null
+                or c.encryptedCardNumber not like 'v1:%'
+                or c.encryptedPlaceholder not like 'v1:%')
+            order by c.id
+            """)
+    List<Long> findIdsRequiringEncryptionMigration(@Param("afterId") Long afterId, Limit limit);
+
+
+    @Query(value = """
+            select new com.example.bankcards.repository.projection.CardView(
+                c.id, c.last4, c.encryptedPlaceholder, c.expirationDate, c.status,
+                c.balance + coalesce((
+                    select sum(e.amount)
+                    from CardLedgerEntry e
+                    where e.cardId = c.id and e.applied = false
+                ), 0),
+                c.user.id)
+            from Card c
+            """,
+            countQuery = "select count(c) from Card c")
+    Page<CardView> findAllCards(Pageable pageable);
+
+
+    @Query("""
+            select new com.example.bankcards.repository.projection.CardView(
+                c.id, c.last4, c.encryptedPlaceholder, c.expirationDate, c.status,
+                c.balance + coalesce((
+                    select sum(e.amount)
+                    from CardLedgerEntry e
+                    where e.cardId = c.id and e.applied = false
+                ), 0),
+                c.user.id)
+            from Card c
+            """)
+    Slice<CardView> findCardSlice(Pageable pageable);
+
+
+    @Query(value = """
+            select case
+                       when reltuples < 0 then (select count(*) from cards)
+                       else reltuples::bigint
+                   end
+            from pg_class
+            where oid = to_regclass('cards')
+            """, nativeQuery = true)
+    long estimateCardCount();
+
+
+    @Query("""
+            select new com.example.bankcards.repository.projection.CardView(
+                c.id, c.last4, c.encryptedPlaceholder, c.expirationDate, c.status,
+                c.balance + coalesce((
+                    select sum(e.amount)
+                    from CardLedgerEntry e
+                    where e.cardId = c.id and e.applied = false
+                ), 0),
+                c.user.id)
+            from Card c
+            where c.id > :afterId
+            order by c.id
+            """)
+    List<CardView> findCardsAfter(@Param("afterId") Long afterId, Limit limit);
+
+
+    @Query(value = """
+            select new com.example.bankcards.repository.projection.CardView(
+                c.id, c.last4, c.encryptedPlaceholder, c.expirationDate, c.status,
+                c.balance + coalesce((
+                    select sum(e.amount)
+                    from CardLedgerEntry e
+                    where e.cardId = c.id and e.applied = false
+                ), 0),
+                c.user.id)
+            from Card c
+            where c.user.id = :userId
+            """,
+            countQuery = "select count(c) from Card c where c.user.id = :userId")
+    Page<CardView> findCardsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+
+    @Query("""
+            select new com.example.bankcards.repository.projection.CardView(
+                c.id, c.last4, c.encryptedPlaceholder, c.expirationDate, c.status,
+                c.balance + coalesce((
+                    select sum(e.amount)
+                    from CardLedgerEntry e
+                    where e.cardId = c.id and e.applied = false
+                ), 0),
+                c.user.id)
+            from Card c
+            where c.user.id = :userId
+            """)
+    Slice<CardView> findCardSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
+
+    @Query("""
+            select c.balance + coalesce((
+                select sum(e.amount)
+                from CardLedgerEntry e
+                where e.cardId = c.id and e.applied = false
+            ), 0)
             from Card c
             join c.user u
             where c.id = :cardId and u.id = :userId
@@ -37,25 +146,84 @@ public interface CardRepository extends JpaRepository<Card, Long> {
     Optional<Card> findCardByCardIdAndUserId(@Param("cardId") Long cardId, @Param("userId") Long userId);
 
 
+    @Query(value = """
+            select id
+            from cards
+            where id in (:cardIds) and user_id = :userId
+            order by id
+            for no key update
+            """, nativeQuery = true)
+    List<Long> lockUserCards(@Param("cardIds") Collection<Long> cardIds, @Param("userId") Long userId);
+
+
     @Query("""
             from Card c
-            where c.user.id = :userId
-            and (:cardId is null or c.id = :cardId)
-            and (:last4 is null or c.last4 = :last4)
-            and (:status is null or c.status = :status)
+            where c.id in :cardIds
+            order by c.id
             """)
-    Page<Card> findUserCards(Pageable pageable,
-                             @Param("userId") Long userId,
-                             @Param("cardId") Long cardId,
-                             @Param("last4") String last4,
-                             @Param("status") CardStatus status);
+    List<Card> findCardsByIds(@Param("cardIds") Collection<Long> cardIds);
+
+
+    default List<Card> findCardsForUpdate(Collection<Long> cardIds, Long userId) {
+        var lockedIds = lockUserCards(cardIds, userId);
+
+        return lockedIds.isEmpty() ? List.of() : findCardsByIds(lockedIds);
+    }
+
+
+    @Query(value = """
+            select id
+            from cards
+            where id in (:cardIds)
+            order by id
+            for no key update
+            """, nativeQuery = true)
+    List<Long> lockCardsForLedger(@Param("cardIds") Collection<Long> cardIds);
+
+
+    @Transactional
+    @Query(value = """
+            with debited as (
+                update cards
+                set balance = balance - :amount, updated_at = now()
+                where id = :cardId
+                  and user_id = :userId
+                  and status not in ('BLOCKED', 'EXPIRED')
+                  and expiration_date >= current_date
+                  and balance >= :amount
+                returning id, balance
+            ), entry as (
+                insert into card_ledger_entries (card_id, operation, amount, applied, created_at)
+                select id, :operation, - :amount, true, now()
+                from debited
+            )
+            select d.balance + coalesce((
+                select sum(e.amount)
+                from card_ledger_entries e
+                where e.card_id = d.id and e.applied = false
+            ), 0)
+            from debited d
+            """, nativeQuery = true)
+    Optional<BigDecimal> debit(@Param("cardId") Long cardId,
+                               @Param("userId") Long userId,
+                               @Param("amount") BigDecimal amount,
+                               @Param("operation") String operation);
 
 
     @Modifying
-    @Query("""
-            update Card c
-            set c.status = :status
-            where c.id = :id
-            """)
-    void updateCardByIdAndStatus(@Param("id") Long id, @Param("status") CardStatus status);
+    @Transactional
+    @Query(value = """
+            update cards
+            set status = 'EXPIRED', updated_at = now()
+            where id in (
+                select id
+                from cards
+                where status <> 'EXPIRED'
+                  and status <> 'BLOCKED'
+                  and expiration_date < current_date
+                limit :batchSize
+                for update skip locked
+            )
+            """, nativeQuery = true)
+    int expireOverdueCards(@Param("batchSize") int batchSize);
 }
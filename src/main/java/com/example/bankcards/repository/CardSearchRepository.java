@@ -0,0 +1,11 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface CardSearchRepository {
+
+    Page<CardView> findUserCards(Pageable pageable, Long userId, Long cardId, String last4, CardStatus status);
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.projection.CardView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+public class CardSearchRepositoryImpl implements CardSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+
+    @Override
+    public Page<CardView> findUserCards(Pageable pageable, Long userId, Long cardId, String last4, CardStatus status) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(CardView.class);
+        var card = query.from(Card.class);
+
+        var pending = query.subquery(BigDecimal.class);
+        var entry = pending.from(CardLedgerEntry.class);
+        pending.select(cb.sum(entry.<BigDecimal>get("amount")))
+                .where(cb.equal(entry.get("cardId"), card.get("id")),
+                        cb.isFalse(entry.<Boolean>get("applied")));
+
+        query.select(cb.construct(CardView.class,
+                        card.get("id"),
+                        card.get("last4"),
+                        card.get("encryptedPlaceholder"),
+                        card.get("expirationDate"),
+                        card.get("status"),
+                        cb.sum(card.<BigDecimal>get("balance"), cb.coalesce(pending, BigDecimal.ZERO)),
+                        card.get("user").get("id")))
+                .where(filters(cb, card, userId, cardId, last4, status))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), card, cb));
+
+        var typedQuery = entityManager.createQuery(query);
+
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable,
+                () -> countUserCards(userId, cardId, last4, status));
+    }
+
+
+    private long countUserCards(Long userId, Long cardId, String last4, CardStatus status) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Long.class);
+        var card = query.from(Card.class);
+
+        query.select(cb.count(card))
+                .where(filters(cb, card, userId, cardId, last4, status));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+
+    private Predicate[] filters(CriteriaBuilder cb,
+                                Root<Card> card,
+                                Long userId,
+                                Long cardId,
+                                String last4,
+                                CardStatus status) {
+        var predicates = new ArrayList<Predicate>();
+        predicates.add(cb.equal(card.get("user").get("id"), userId));
+
+        if (cardId != null)
+            predicates.add(cb.equal(card.get("id"), cardId));
+
+        if (last4 != null)
+            predicates.add(cb.equal(card.get("last4"), last4));
+
+        if (status != null)
+            predicates.add(cb.equal(card.get("status"), status));
+
+        return predicates.toArray(Predicate[]::new);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into idempotency_keys (user_id, idempotency_key, request_hash, created_at, expires_at)
+            values (:userId, :key, :requestHash, now(), :expiresAt)
+            on conflict (user_id, idempotency_key) do nothing
+            """, nativeQuery = true)
+    int reserve(@Param("userId") Long userId,
+                @Param("key") String key,
+                @Param("requestHash") String requestHash,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update IdempotencyRecord r
+            set r.statusCode = :statusCode, r.contentType = :contentType, r.responseBody = :responseBody
+            where r.userId = :userId and r.idempotencyKey = :key
+            """)
+    int complete(@Param("userId") Long userId,
+                 @Param("key") String key,
+                 @Param("statusCode") Integer statusCode,
+                 @Param("contentType") String contentType,
+                 @Param("responseBody") String responseBody);
+
+
+    @Modifying
+    @Transactional
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.userId = :userId and r.idempotencyKey = :key and r.statusCode is null
+            """)
+    int release(@Param("userId") Long userId, @Param("key") String key);
+
+
+    @Modifying
+    @Transactional
+    @Query("""
+            delete from IdempotencyRecord r
+            where r.expiresAt < :now
+            or (r.statusCode is null and r.createdAt < :staleBefore)
+            """)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+}
@@ -1,8 +1,19 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.projection.CardRecipient;
+import com.example.bankcards.repository.projection.UserView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,4 +23,57 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByPhoneNumber(String phoneNumber);
 
     Optional<User> getUserByPhoneNumber(String phoneNumber);
+
+
+    @Modifying
+    @Transactional
+    @Query("""
+            update User u
+            set u.password = :newPassword
+            where u.id = :id and u.password = :currentPassword
+            """)
+    int replacePassword(@Param("id") Long id,
+                        @Param("currentPassword") String currentPassword,
+                        @Param("newPassword") String newPassword);
+
+
+    @Query("""
+            select new com.example.bankcards.repository.projection.UserView(u.id, u.firstName, u.lastName, u.phoneNumber)
+            from User u
+            where u.id > :afterId
+            order by u.id
+            """)
+    List<UserView> findUsersAfter(@Param("afterId") Long afterId, Limit limit);
+
+
+    @Query("""
+            select new com.example.bankcards.repository.projection.UserView(u.id, u.firstName, u.lastName, u.phoneNumber)
+            from User u
+            """)
+    Slice<UserView> findUserSlice(Pageable pageable);
+
+
+    @Query(value = """
+            select case
+                       when reltuples < 0 then (select count(*) from users)
+                       else reltuples::bigint
+                   end
+            from pg_class
+            where oid = to_regclass('users')
+            """, nativeQuery = true)
+    long estimateUserCount();
+
+
+    @Query("""
+            select new com.example.bankcards.repository.projection.CardRecipient(u.id, u.firstName, u.lastName)
+            from User u
+            where u.id in :ids
+              and not exists (
+                  select 1
+                  from User a
+                  join a.roles r
+                  where a.id = u.id and upper(r.name) = 'ROLE_ADMIN'
+              )
+            """)
+    List<CardRecipient> findCardRecipients(@Param("ids") Collection<Long> ids);
 }
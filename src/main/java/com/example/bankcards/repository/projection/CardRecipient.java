@@ -0,0 +1,8 @@
+package com.example.bankcards.repository.projection;
+
+public record CardRecipient(
+        Long id,
+        String firstName,
+        String lastName
+) {
+}
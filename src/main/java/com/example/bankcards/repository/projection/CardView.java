@@ -0,0 +1,17 @@
+package com.example.bankcards.repository.projection;
+
+import com.example.bankcards.entity.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record CardView(
+        Long id,
+        String last4,
+        String encryptedPlaceholder,
+        LocalDate expirationDate,
+        CardStatus status,
+        BigDecimal balance,
+        Long userId
+) {
+}
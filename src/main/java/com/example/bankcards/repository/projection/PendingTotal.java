@@ -0,0 +1,10 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface PendingTotal {
+
+    Long getCardId();
+
+    BigDecimal getAmount();
+}
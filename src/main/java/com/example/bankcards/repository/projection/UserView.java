@@ -0,0 +1,9 @@
+package com.example.bankcards.repository.projection;
+
+public record UserView(
+        Long id,
+        String firstName,
+        String lastName,
+        String phoneNumber
+) {
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.service.CardEncryptionMigrationService;
+import com.example.bankcards.util.AdvisoryLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CardEncryptionMigrationJob {
+
+    private static final long LOCK_KEY = "card-encryption-migration".hashCode();
+
+    private final CardEncryptionMigrationService migrationService;
+    private final AdvisoryLock advisoryLock;
+
+    @Value("${encryption.migration.batch-size}")
+    private int batchSize;
+
+    private volatile boolean completed;
+
+
+    @Scheduled(fixedDelayString = "${encryption.migration.interval}")
+    public void reEncryptLegacyCards() {
+        if (completed)
+            return;
+
+        advisoryLock.runExclusively(LOCK_KEY, this::migrateAll);
+    }
+
+
+    private void migrateAll() {
+        var lastId = migrationService.migrateBatch(0L, batchSize);
+
+        while (lastId.isPresent()) {
+            lastId = migrationService.migrateBatch(lastId.get(), batchSize);
+        }
+
+        completed = true;
+    }
+}
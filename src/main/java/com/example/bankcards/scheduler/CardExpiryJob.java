@@ -0,0 +1,36 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CardExpiryJob {
+
+    private static final long LOCK_KEY = "card-expiry".hashCode();
+
+    private final CardRepository cardRepository;
+    private final AdvisoryLock advisoryLock;
+
+    @Value("${cards.expiry.batch-size}")
+    private int batchSize;
+
+
+    @Scheduled(fixedDelayString = "${cards.expiry.interval}")
+    public void expireOverdueCards() {
+        advisoryLock.runExclusively(LOCK_KEY, this::expireInBatches);
+    }
+
+
+    private void expireInBatches() {
+        int expired;
+
+        do {
+            expired = cardRepository.expireOverdueCards(batchSize);
+        } while (expired == batchSize);
+    }
+}
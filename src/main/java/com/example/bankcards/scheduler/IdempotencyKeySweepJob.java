@@ -0,0 +1,19 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeySweepJob {
+
+    private final IdempotencyService idempotencyService;
+
+
+    @Scheduled(fixedDelayString = "${idempotency.sweep-interval}")
+    public void purgeExpiredKeys() {
+        idempotencyService.purgeExpired();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerCompactionJob {
+
+    private final CardLedgerEntryRepository ledgerEntryRepository;
+    private final LedgerService ledgerService;
+
+    @Value("${ledger.compaction.batch-size}")
+    private int batchSize;
+
+
+    @Scheduled(fixedDelayString = "${ledger.compaction.interval}")
+    public void compactPendingEntries() {
+        ledgerEntryRepository.findCardIdsWithPendingEntries(Limit.of(batchSize))
+                .forEach(this::compact);
+    }
+
+
+    private void compact(Long cardId) {
+        try {
+            ledgerService.compact(cardId);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось свернуть журнал операций карты {}", cardId, e);
+        }
+    }
+}
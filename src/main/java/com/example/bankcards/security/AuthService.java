@@ -2,19 +2,24 @@ package com.example.bankcards.security;
 
 import com.example.bankcards.dto.auth.AuthRequestDto;
 import com.example.bankcards.dto.auth.AuthResponseDto;
+import com.example.bankcards.exception.TooManyRequestsException;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.util.UserDetailsBuilder;
 import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -25,12 +30,16 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
 
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponseDto authenticate(AuthRequestDto dto) {
         var user = getUser(dto.phoneNumber(), "Неправильно введен номер телефона или пароль");
 
         if (!passwordEncoder.matches(dto.password(), user.getPassword()))
             throw new IllegalArgumentException("Неправильно введен номер телефона или пароль");
 
+        if (passwordEncoder.upgradeEncoding(user.getPassword()))
+            upgradePassword(user, dto.password());
+
         var accessToken = getAccessToken(user);
         var refreshToken = getRefreshToken(user);
 
@@ -41,11 +50,11 @@ public class AuthService {
 
 
     public AuthResponseDto refreshToken(String refreshToken) {
-        var phoneNumber = jwtService.extractPhoneNumber(refreshToken, true);
-        var user = getUser(phoneNumber, "Пользователь не найден");
+        var claims = jwtService.parseRefreshToken(refreshToken);
+        var user = getUser(claims.getSubject(), "Пользователь не найден");
         var userDetails = UserDetailsBuilder.buildUserDetails(user);
 
-        if (!jwtService.isRefreshTokenValid(refreshToken, userDetails)) {
+        if (!jwtService.isTokenValid(claims, userDetails)) {
             throw new JwtException("Refresh токен не валиден");
         }
 
@@ -57,6 +66,15 @@ public class AuthService {
     }
 
 
+    private void upgradePassword(User user, String rawPassword) {
+        try {
+            userRepository.replacePassword(user.getId(), user.getPassword(), passwordEncoder.encode(rawPassword));
+        } catch (TooManyRequestsException | DataAccessException e) {
+            log.warn("Не удалось обновить хеш пароля пользователя {}", user.getId(), e);
+        }
+    }
+
+
     private String getAccessToken(User user) {
         return jwtService.generateAccessToken(user);
     }
@@ -1,13 +1,16 @@
 package com.example.bankcards.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -20,7 +23,12 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokens;
     private final UserDetailsService userDetailsService;
+    private final RevokedUserRegistry revokedUsers;
+
+    @Value("${security.jwt.stateless}")
+    private boolean stateless;
 
 
     @Override
@@ -35,13 +43,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         var jwt = header.substring(7);
-        var phoneNumber = jwtService.extractPhoneNumber(jwt, false);
+        var claims = verifiedTokens.get(jwt);
+        var phoneNumber = claims.getSubject();
         var authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (phoneNumber != null && authentication == null) {
-            var userDetails = userDetailsService.loadUserByUsername(phoneNumber);
+            var userDetails = loadUserDetails(claims, phoneNumber);
 
-            if (jwtService.isTokenValid(jwt, false, userDetails)) {
+            if (jwtService.isTokenValid(claims, userDetails) && !isRevoked(userDetails)) {
                 var authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
@@ -52,4 +61,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+
+    private UserDetails loadUserDetails(Claims claims, String phoneNumber) {
+        if (stateless) {
+            var principal = jwtService.extractUserDetails(claims);
+
+            if (principal.isPresent())
+                return principal.get();
+        }
+
+        return userDetailsService.loadUserByUsername(phoneNumber);
+    }
+
+
+    private boolean isRevoked(UserDetails userDetails) {
+        return userDetails instanceof CustomUserDetails principal && revokedUsers.isRevoked(principal.userId());
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private static final int KEY_ID_BYTES = 8;
+
+    private final String signingKeyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> verificationKeys = new HashMap<>();
+
+
+    public JwtKeyRing(String secret, Collection<String> previousSecrets) {
+        var decoded = Decoders.BASE64.decode(secret);
+
+        this.signingKeyId = keyId(decoded);
+        this.signingKey = Keys.hmacShaKeyFor(decoded);
+        this.verificationKeys.put(signingKeyId, signingKey);
+
+        previousSecrets.stream()
+                .filter(previous -> !previous.isBlank())
+                .map(previous -> Decoders.BASE64.decode(previous.trim()))
+                .forEach(previous -> verificationKeys.putIfAbsent(keyId(previous), Keys.hmacShaKeyFor(previous)));
+    }
+
+
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+
+    public SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        var keyId = header.getKeyId();
+
+        if (keyId == null)
+            return signingKey;
+
+        var key = verificationKeys.get(keyId);
+
+        if (key == null)
+            throw new JwtException("Неизвестный ключ подписи токена: " + keyId);
+
+        return key;
+    }
+
+
+    private static String keyId(byte[] secret) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(secret);
+
+            return Encoders.BASE64URL.encode(Arrays.copyOf(digest, KEY_ID_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,91 +3,100 @@ package com.example.bankcards.security;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${jwt.access.secret}")
-    private String accessSecret;
-
-    @Value("${jwt.refresh.secret}")
-    private String refreshSecret;
-
-    @Value("${jwt.access.expiration}")
-    private long accessExpiration;
-
-    @Value("${jwt.refresh.expiration}")
-    private long refreshExpiration;
+    private final JwtKeyRing accessKeys;
+    private final JwtKeyRing refreshKeys;
+    private final JwtParser accessParser;
+    private final JwtParser refreshParser;
+    private final long accessExpiration;
+    private final long refreshExpiration;
+
+
+    public JwtService(@Value("${jwt.access.secret}") String accessSecret,
+                      @Value("${jwt.access.previous-secrets}") List<String> previousAccessSecrets,
+                      @Value("${jwt.refresh.secret}") String refreshSecret,
+                      @Value("${jwt.refresh.previous-secrets}") List<String> previousRefreshSecrets,
+                      @Value("${jwt.access.expiration}") long accessExpiration,
+                      @Value("${jwt.refresh.expiration}") long refreshExpiration) {
+        this.accessKeys = new JwtKeyRing(accessSecret, previousAccessSecrets);
+        this.refreshKeys = new JwtKeyRing(refreshSecret, previousRefreshSecrets);
+        this.accessParser = Jwts.parser().keyLocator(accessKeys).build();
+        this.refreshParser = Jwts.parser().keyLocator(refreshKeys).build();
+        this.accessExpiration = accessExpiration;
+        this.refreshExpiration = refreshExpiration;
+    }
 
 
     public String generateAccessToken(User user) {
         var roles = getRoles(user);
 
         return Jwts.builder()
+                .header().keyId(accessKeys.getSigningKeyId()).and()
                 .subject(user.getPhoneNumber())
+                .claim("uid", user.getId())
                 .claim("roles", roles)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + accessExpiration))
-                .signWith(getSigningKey(accessSecret))
+                .signWith(accessKeys.getSigningKey())
                 .compact();
     }
 
 
     public String generateRefreshToken(User user) {
         return Jwts.builder()
+                .header().keyId(refreshKeys.getSigningKeyId()).and()
                 .subject(user.getPhoneNumber())
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + refreshExpiration))
-                .signWith(getSigningKey(refreshSecret))
+                .signWith(refreshKeys.getSigningKey())
                 .compact();
     }
 
 
-    public Claims extractClaims(String token, boolean isRefresh) {
-        String secret = isRefresh ? refreshSecret : accessSecret;
-
-        return Jwts.parser()
-                .verifyWith(getSigningKey(secret))
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Claims parseAccessToken(String token) {
+        return accessParser.parseSignedClaims(token).getPayload();
     }
 
 
-    public String extractPhoneNumber(String token, boolean isRefresh) {
-        return extractClaims(token, isRefresh).getSubject();
+    public Claims parseRefreshToken(String token) {
+        return refreshParser.parseSignedClaims(token).getPayload();
     }
 
 
-    public boolean isTokenValid(String token, boolean isRefresh, UserDetails userDetails) {
-        final String phoneNumber = extractPhoneNumber(token, isRefresh);
-        boolean isTokenExpired = extractClaims(token, isRefresh).getExpiration().before(new Date());
+    public Optional<CustomUserDetails> extractUserDetails(Claims claims) {
+        var userId = claims.get("uid", Long.class);
+        List<?> roles = claims.get("roles", List.class);
 
-        return phoneNumber.equals(userDetails.getUsername()) && !isTokenExpired;
-    }
+        if (userId == null || roles == null)
+            return Optional.empty();
 
+        var authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(role.toString()))
+                .collect(Collectors.toSet());
 
-    public boolean isRefreshTokenValid(String token, UserDetails userDetails) {
-        return isTokenValid(token, true, userDetails);
+        return Optional.of(new CustomUserDetails(userId, claims.getSubject(), null, authorities));
     }
 
 
-    private SecretKey getSigningKey(String secret) {
-        byte[] decodedKey = Decoders.BASE64.decode(secret);
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        var phoneNumber = claims.getSubject();
+        var isTokenExpired = claims.getExpiration() != null && claims.getExpiration().before(new Date());
 
-        return Keys.hmacShaKeyFor(decodedKey);
+        return phoneNumber != null && phoneNumber.equals(userDetails.getUsername()) && !isTokenExpired;
     }
 
 
@@ -0,0 +1,56 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class PrincipalCache {
+
+    private final Cache<String, CustomUserDetails> principals;
+
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.max-size}") long maxSize,
+                          @Value("${security.principal-cache.ttl}") Duration ttl) {
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "principals");
+    }
+
+
+    public CustomUserDetails get(String phoneNumber, Function<String, CustomUserDetails> loader) {
+        return principals.get(phoneNumber, loader);
+    }
+
+
+    public void evictByUserId(Long userId) {
+        removeByUserId(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeByUserId(userId);
+                }
+            });
+        }
+    }
+
+
+    private void removeByUserId(Long userId) {
+        principals.asMap().values().removeIf(principal -> principal.userId().equals(userId));
+    }
+}
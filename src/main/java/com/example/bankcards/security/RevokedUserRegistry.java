@@ -0,0 +1,43 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+@Component
+public class RevokedUserRegistry {
+
+    private final Cache<Long, Boolean> revokedUsers;
+
+
+    public RevokedUserRegistry(@Value("${jwt.access.expiration}") long accessExpiration) {
+        this.revokedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(accessExpiration))
+                .build();
+    }
+
+
+    public void revoke(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revokedUsers.put(userId, Boolean.TRUE);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revokedUsers.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+
+    public boolean isRevoked(Long userId) {
+        return revokedUsers.getIfPresent(userId) != null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.bankcards.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtService jwtService;
+    private final Cache<String, Claims> verifiedTokens;
+
+
+    public VerifiedTokenCache(JwtService jwtService,
+                              MeterRegistry meterRegistry,
+                              @Value("${security.jwt.token-cache.enabled}") boolean enabled,
+                              @Value("${security.jwt.token-cache.max-size}") long maxSize) {
+        this.jwtService = jwtService;
+        this.verifiedTokens = enabled ? buildCache(meterRegistry, maxSize) : null;
+    }
+
+
+    public Claims get(String token) {
+        if (verifiedTokens == null)
+            return jwtService.parseAccessToken(token);
+
+        return verifiedTokens.get(hash(token), key -> jwtService.parseAccessToken(token));
+    }
+
+
+    private static Cache<String, Claims> buildCache(MeterRegistry meterRegistry, long maxSize) {
+        Cache<String, Claims> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(untilTokenExpiration())
+                .recordStats()
+                .build();
+
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "verified_tokens");
+    }
+
+
+    private static Expiry<String, Claims> untilTokenExpiration() {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                var expiration = claims.getExpiration();
+
+                if (expiration == null)
+                    return 0;
+
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiration.getTime() - System.currentTimeMillis()));
+            }
+
+
+            @Override
+            public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+
+
+            @Override
+            public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+
+    private static String hash(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
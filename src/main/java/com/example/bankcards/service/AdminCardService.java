@@ -1,6 +1,7 @@
 package com.example.bankcards.service;
 
 import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.card.CursorPageCardResponseDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
@@ -10,12 +11,17 @@ import com.example.bankcards.exception.RejectOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardView;
 import com.example.bankcards.util.CardMasker;
 import com.example.bankcards.util.CardNumberGenerator;
 import com.example.bankcards.util.Encryptor;
+import com.example.bankcards.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -46,10 +52,7 @@ public class AdminCardService {
         if (isAdmin)
             throw new RejectOperationException("Операция отклонена. Администратор не может быть получателем карты");
 
-        String cardNumber;
-        do {
-            cardNumber = cardNumberGenerator.generate();
-        } while (cardRepository.existsByEncryptedCardNumber(encryptor.encrypt(cardNumber)));
+        var cardNumber = cardNumberGenerator.generate(cardRepository.nextCardNumberSequence());
 
         var newCard = Card.builder()
                 .cardNumber(cardNumber)
@@ -77,7 +80,7 @@ public class AdminCardService {
 
         card.setStatus(CardStatus.BLOCKED);
 
-        return "Карта %s заблокирована".formatted(mask(card.getCardNumber()));
+        return "Карта %s заблокирована".formatted(mask(card));
     }
 
 
@@ -89,7 +92,7 @@ public class AdminCardService {
 
         card.setStatus(CardStatus.ACTIVE);
 
-        return "Карта %s активирована".formatted(mask(card.getCardNumber()));
+        return "Карта %s активирована".formatted(mask(card));
     }
 
 
@@ -98,26 +101,49 @@ public class AdminCardService {
 
         cardRepository.delete(card);
 
-        return "Карта %s удалена".formatted(mask(card.getCardNumber()));
+        return "Карта %s удалена".formatted(mask(card));
     }
 
 
     @Transactional(readOnly = true)
-    public PageCardResponseDto getAllCards(Pageable pageable) {
+    public PageCardResponseDto getAllCards(Pageable pageable, boolean withTotal, boolean approximateTotal) {
+        if (!withTotal)
+            return toSliceDto(cardRepository.findCardSlice(pageable).map(this::toDto));
 
-        Page<CardResponseDto> page = cardRepository.findAll(pageable)
-                .map(card -> toDto(card, card.getUser().getId()));
+        if (approximateTotal)
+            return toApproximatePageDto(cardRepository.findCardSlice(pageable).map(this::toDto),
+                    cardRepository.estimateCardCount());
+
+        Page<CardResponseDto> page = cardRepository.findAllCards(pageable)
+                .map(this::toDto);
 
         return toPageDto(page);
     }
 
 
-    public PageCardResponseDto getUserCards(Long id, Pageable pageable) {
+    @Transactional(readOnly = true)
+    public CursorPageCardResponseDto getAllCardsAfter(String after, int size) {
+        var cards = cardRepository.findCardsAfter(PageCursor.decode(after), Limit.of(size + 1));
+        var hasNext = cards.size() > size;
+        var content = hasNext ? cards.subList(0, size) : cards;
+
+        return CursorPageCardResponseDto.builder()
+                .content(content.stream().map(this::toDto).toList())
+                .size(size)
+                .next(hasNext ? PageCursor.encode(content.get(size - 1).id()) : null)
+                .build();
+    }
+
+
+    public PageCardResponseDto getUserCards(Long id, Pageable pageable, boolean withTotal) {
         if (!userRepository.existsById(id))
             throw new UserNotFoundException(USER_NOT_FOUND_MESSAGE);
 
+        if (!withTotal)
+            return toSliceDto(cardRepository.findCardSliceByUserId(id, pageable).map(this::toDto));
+
         Page<CardResponseDto> page = cardRepository.findCardsByUserId(id, pageable)
-                .map(card -> toDto(card, id));
+                .map(this::toDto);
 
         return toPageDto(page);
     }
@@ -133,16 +159,29 @@ public class AdminCardService {
     private CardResponseDto toDto(Card card, Long userId) {
         return CardResponseDto.builder()
                 .id(card.getId())
-                .cardNumber(mask(card.getCardNumber()))
+                .cardNumber(mask(card))
                 .placeholder(card.getPlaceholder())
                 .expirationDate(card.getExpirationDate())
                 .status(card.getStatus())
-                .balance(card.getBalance())
+                .balance(card.getAvailableBalance())
                 .userId(userId)
                 .build();
     }
 
 
+    private CardResponseDto toDto(CardView card) {
+        return CardResponseDto.builder()
+                .id(card.id())
+                .cardNumber(CardMasker.maskLast4(card.last4()))
+                .placeholder(encryptor.decrypt(card.encryptedPlaceholder()))
+                .expirationDate(card.expirationDate())
+                .status(card.status())
+                .balance(card.balance())
+                .userId(card.userId())
+                .build();
+    }
+
+
     private PageCardResponseDto toPageDto(Page<CardResponseDto> page) {
         return PageCardResponseDto.builder()
                 .content(page.getContent())
@@ -151,11 +190,37 @@ public class AdminCardService {
                 .totalPages(page.getTotalPages())
                 .totalElements(page.getTotalElements())
                 .last(page.isLast())
+                .approximateTotal(false)
+                .build();
+    }
+
+
+    private PageCardResponseDto toSliceDto(Slice<CardResponseDto> slice) {
+        return PageCardResponseDto.builder()
+                .content(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .last(slice.isLast())
+                .build();
+    }
+
+
+    private PageCardResponseDto toApproximatePageDto(Slice<CardResponseDto> slice, long estimatedTotal) {
+        var page = new PageImpl<>(slice.getContent(), slice.getPageable(), estimatedTotal);
+
+        return PageCardResponseDto.builder()
+                .content(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .totalPages(page.getTotalPages())
+                .totalElements(page.getTotalElements())
+                .last(slice.isLast())
+                .approximateTotal(true)
                 .build();
     }
 
 
-    private String mask(String cardNumber) {
-        return CardMasker.maskCard(cardNumber);
+    private String mask(Card card) {
+        return CardMasker.maskLast4(card.getLast4());
     }
 }
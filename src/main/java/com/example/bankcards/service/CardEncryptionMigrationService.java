@@ -0,0 +1,29 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class CardEncryptionMigrationService {
+
+    private final CardRepository cardRepository;
+
+
+    @Transactional
+    public Optional<Long> migrateBatch(Long afterId, int batchSize) {
+        var ids = cardRepository.findIdsRequiringEncryptionMigration(afterId, Limit.of(batchSize));
+
+        if (ids.isEmpty())
+            return Optional.empty();
+
+        cardRepository.saveAll(cardRepository.findAllById(ids));
+
+        return Optional.of(ids.get(ids.size() - 1));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardIssuanceBatchDto;
+import com.example.bankcards.dto.card.CardIssuanceBatchResponseDto;
+import com.example.bankcards.dto.card.CardIssuanceChunkDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardRecipient;
+import com.example.bankcards.util.CardNumberGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CardIssuanceService {
+
+    private final CardRepository cardRepository;
+    private final UserRepository userRepository;
+    private final CardNumberGenerator cardNumberGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+
+    public CardIssuanceService(CardRepository cardRepository,
+                               UserRepository userRepository,
+                               CardNumberGenerator cardNumberGenerator,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${cards.issuance.chunk-size}") int chunkSize) {
+        this.cardRepository = cardRepository;
+        this.userRepository = userRepository;
+        this.cardNumberGenerator = cardNumberGenerator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+
+    public CardIssuanceBatchResponseDto issueCards(CardIssuanceBatchDto batchDto) {
+        var userIds = batchDto.userIds().stream().distinct().toList();
+        var chunks = new ArrayList<CardIssuanceChunkDto>();
+
+        for (int from = 0; from < userIds.size(); from += chunkSize) {
+            var chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+
+            chunks.add(issueChunk(chunks.size(), chunk));
+        }
+
+        return CardIssuanceBatchResponseDto.builder()
+                .issued(chunks.stream().mapToInt(CardIssuanceChunkDto::issued).sum())
+                .failed(chunks.stream().mapToInt(CardIssuanceChunkDto::failed).sum())
+                .chunks(chunks)
+                .build();
+    }
+
+
+    private CardIssuanceChunkDto issueChunk(int index, List<Long> userIds) {
+        try {
+            var failedUserIds = transactionTemplate.execute(status -> persistCards(userIds));
+
+            return chunkResult(index, userIds.size() - failedUserIds.size(), failedUserIds);
+        } catch (DataAccessException | IllegalStateException e) {
+            return chunkResult(index, 0, userIds);
+        }
+    }
+
+
+    private List<Long> persistCards(List<Long> userIds) {
+        Map<Long, CardRecipient> recipients = userRepository.findCardRecipients(userIds).stream()
+                .collect(Collectors.toMap(CardRecipient::id, Function.identity()));
+
+        var issuedUserIds = userIds.stream()
+                .filter(recipients::containsKey)
+                .toList();
+
+        if (issuedUserIds.isEmpty())
+            return userIds;
+
+        var sequences = cardRepository.nextCardNumberSequences(issuedUserIds.size());
+        var cards = new ArrayList<Card>(issuedUserIds.size());
+
+        for (int i = 0; i < issuedUserIds.size(); i++) {
+            cards.add(newCard(recipients.get(issuedUserIds.get(i)), sequences.get(i)));
+        }
+
+        cardRepository.saveAll(cards);
+
+        return userIds.stream()
+                .filter(id -> !recipients.containsKey(id))
+                .toList();
+    }
+
+
+    private Card newCard(CardRecipient recipient, long sequence) {
+        var cardNumber = cardNumberGenerator.generate(sequence);
+
+        return Card.builder()
+                .cardNumber(cardNumber)
+                .last4(cardNumber.substring(cardNumber.length() - 4))
+                .placeholder(recipient.firstName() + " " + recipient.lastName())
+                .expirationDate(LocalDate.now().plusYears(10))
+                .status(CardStatus.ACTIVE)
+                .balance(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP))
+                .user(userRepository.getReferenceById(recipient.id()))
+                .build();
+    }
+
+
+    private CardIssuanceChunkDto chunkResult(int index, int issued, List<Long> failedUserIds) {
+        return CardIssuanceChunkDto.builder()
+                .index(index)
+                .issued(issued)
+                .failed(failedUserIds.size())
+                .failedUserIds(failedUserIds)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.idempotency.IdempotentResponse;
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.ConcurrentOperationException;
+import com.example.bankcards.exception.IdempotencyKeyMismatchException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Service
+public class IdempotencyService {
+
+    private static final String IN_PROGRESS_MESSAGE = "Запрос с этим ключом идемпотентности еще обрабатывается";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, IdempotentResponse> responses;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${idempotency.ttl}") Duration ttl,
+                              @Value("${idempotency.lock-timeout}") Duration lockTimeout,
+                              @Value("${idempotency.cache.max-size}") long cacheMaxSize) {
+        this.recordRepository = recordRepository;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+
+    public Optional<IdempotentResponse> begin(Long userId, String key, String requestHash) {
+        var cached = responses.getIfPresent(cacheKey(userId, key, requestHash));
+
+        if (cached != null) {
+            count("cache_hit");
+            return Optional.of(cached);
+        }
+
+        if (recordRepository.reserve(userId, key, requestHash, LocalDateTime.now().plus(ttl)) > 0) {
+            count("miss");
+            return Optional.empty();
+        }
+
+        var record = recordRepository.findByUserIdAndIdempotencyKey(userId, key)
+                .orElseThrow(() -> new ConcurrentOperationException(IN_PROGRESS_MESSAGE));
+
+        if (!record.getRequestHash().equals(requestHash)) {
+            count("mismatch");
+            throw new IdempotencyKeyMismatchException(
+                    "Ключ идемпотентности уже использован для другого запроса");
+        }
+
+        if (!record.isCompleted()) {
+            count("in_progress");
+            throw new ConcurrentOperationException(IN_PROGRESS_MESSAGE);
+        }
+
+        count("store_hit");
+
+        var response = toResponse(record);
+        responses.put(cacheKey(userId, key, requestHash), response);
+
+        return Optional.of(response);
+    }
+
+
+    public void complete(Long userId, String key, String requestHash, IdempotentResponse response) {
+        recordRepository.complete(userId, key, response.statusCode(), response.contentType(), response.body());
+        responses.put(cacheKey(userId, key, requestHash), response);
+    }
+
+
+    public void release(Long userId, String key) {
+        recordRepository.release(userId, key);
+    }
+
+
+    public int purgeExpired() {
+        var now = LocalDateTime.now();
+
+        return recordRepository.deleteExpired(now, now.minus(lockTimeout));
+    }
+
+
+    private void count(String outcome) {
+        meterRegistry.counter("idempotency.requests", "outcome", outcome).increment();
+    }
+
+
+    private String cacheKey(Long userId, String key, String requestHash) {
+        return userId + ":" + key + ":" + requestHash;
+    }
+
+
+    private IdempotentResponse toResponse(IdempotencyRecord record) {
+        return IdempotentResponse.builder()
+                .statusCode(record.getStatusCode())
+                .contentType(record.getContentType())
+                .body(record.getResponseBody())
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.LedgerOperation;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.PendingTotal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class LedgerService {
+
+    private final CardLedgerEntryRepository ledgerEntryRepository;
+    private final CardRepository cardRepository;
+
+
+    public boolean credit(Long cardId, Long userId, BigDecimal amount, LedgerOperation operation) {
+        return ledgerEntryRepository.appendCredit(cardId, userId, scaled(amount), operation.name()) > 0;
+    }
+
+
+    public Optional<BigDecimal> debit(Long cardId, Long userId, BigDecimal amount, LedgerOperation operation) {
+        var balance = cardRepository.debit(cardId, userId, scaled(amount), operation.name());
+
+        if (balance.isPresent())
+            return balance;
+
+        compactLocked(cardId);
+
+        return cardRepository.debit(cardId, userId, scaled(amount), operation.name());
+    }
+
+
+    public BigDecimal compact(Long cardId) {
+        return compactLocked(cardId)
+                .orElseThrow(() -> new CardNotFoundException("Карта с ID %d не найдена".formatted(cardId)));
+    }
+
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settle(Collection<Card> cards) {
+        var cardIds = cards.stream().map(Card::getId).toList();
+        var pending = ledgerEntryRepository.applyPendingEntries(cardIds).stream()
+                .collect(Collectors.toMap(PendingTotal::getCardId, PendingTotal::getAmount));
+
+        cards.forEach(card -> {
+            card.setBalance(card.getBalance().add(pending.getOrDefault(card.getId(), BigDecimal.ZERO)));
+            card.setPendingAmount(BigDecimal.ZERO);
+        });
+    }
+
+
+    public List<CardLedgerEntry> move(Card from, Card to, BigDecimal amount) {
+        var funds = scaled(amount);
+
+        from.setBalance(from.getBalance().subtract(funds));
+        to.setBalance(to.getBalance().add(funds));
+
+        return List.of(
+                appliedEntry(from, LedgerOperation.TRANSFER_OUT, funds.negate()),
+                appliedEntry(to, LedgerOperation.TRANSFER_IN, funds)
+        );
+    }
+
+
+    public void record(List<CardLedgerEntry> entries) {
+        if (entries.isEmpty())
+            return;
+
+        ledgerEntryRepository.appendEntries(
+                entries.stream().map(CardLedgerEntry::getCardId).toArray(Long[]::new),
+                entries.stream().map(entry -> entry.getOperation().name()).toArray(String[]::new),
+                entries.stream().map(CardLedgerEntry::getAmount).toArray(BigDecimal[]::new),
+                entries.stream().map(CardLedgerEntry::isApplied).toArray(Boolean[]::new));
+    }
+
+
+    private Optional<BigDecimal> compactLocked(Long cardId) {
+        if (cardRepository.lockCardsForLedger(List.of(cardId)).isEmpty())
+            return Optional.empty();
+
+        return ledgerEntryRepository.compact(cardId);
+    }
+
+
+    private CardLedgerEntry appliedEntry(Card card, LedgerOperation operation, BigDecimal amount) {
+        return CardLedgerEntry.builder()
+                .cardId(card.getId())
+                .operation(operation)
+                .amount(amount)
+                .applied(true)
+                .build();
+    }
+
+
+    private BigDecimal scaled(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
+}
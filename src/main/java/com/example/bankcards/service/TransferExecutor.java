@@ -0,0 +1,71 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.ConcurrentOperationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+@Service
+public class TransferExecutor {
+
+    private static final String CONCURRENT_OPERATION_MESSAGE =
+            "Операция отклонена из-за параллельного изменения карты. Повторите попытку позже";
+
+    private final TransactionTemplate transactionTemplate;
+    private final Counter retryCounter;
+    private final Counter exhaustedCounter;
+
+    @Value("${transfer.retry.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${transfer.retry.backoff}")
+    private long backoff;
+
+
+    public TransferExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryCounter = meterRegistry.counter("card.transfer.retries");
+        this.exhaustedCounter = meterRegistry.counter("card.transfer.retries.exhausted");
+    }
+
+
+    public void execute(Runnable transfer) {
+        executeAndGet(() -> {
+            transfer.run();
+            return null;
+        });
+    }
+
+
+    public <T> T executeAndGet(Supplier<T> transfer) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> transfer.get());
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    exhaustedCounter.increment();
+                    throw new ConcurrentOperationException(CONCURRENT_OPERATION_MESSAGE);
+                }
+
+                retryCounter.increment();
+                pause(attempt);
+            }
+        }
+    }
+
+
+    private void pause(int attempt) {
+        try {
+            Thread.sleep(backoff * attempt);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentOperationException(CONCURRENT_OPERATION_MESSAGE);
+        }
+    }
+}
@@ -5,24 +5,39 @@ import com.example.bankcards.dto.card.FundsDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.dto.card.RequestCardBlockDto;
 import com.example.bankcards.dto.card.ResponseCardBlockDto;
+import com.example.bankcards.dto.card.TransferBatchDto;
+import com.example.bankcards.dto.card.TransferBatchResponseDto;
 import com.example.bankcards.dto.card.TransferDto;
+import com.example.bankcards.dto.card.TransferResultDto;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.LedgerOperation;
 import com.example.bankcards.exception.CardNotFoundException;
 import com.example.bankcards.exception.CardOperationFailedException;
 import com.example.bankcards.exception.CardStatusException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardView;
 import com.example.bankcards.util.CardMasker;
+import com.example.bankcards.util.Encryptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.RoundingMode;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
@@ -32,15 +47,19 @@ public class UserCardService {
     private static final String INSUFFICIENT_FUNDS_MESSAGE = "Недостаточно средств на карте";
     private static final String CARD_NOT_FOUND_MESSAGE = "Карта не найдена";
     private static final String CARD_EXPIRED_SUPPORT_MESSAGE = "Срок действия карты истек. Обратитесь в службу поддержки";
+    private static final String OPERATION_REJECTED_MESSAGE = "Операция отклонена. Повторите попытку позже";
+    private static final String SAME_CARD_MESSAGE = "Вы пытаетесь перевести деньги на ту же карту, " +
+            "с которой отправляете. \nВозможно, вы ошиблись.";
 
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
-    private final StatusChanger statusChanger;
+    private final LedgerService ledgerService;
+    private final TransferExecutor transferExecutor;
+    private final Encryptor encryptor;
 
 
     public String showBalance(Long cardId, Long userId) {
-        var cardBalance = cardRepository.getBalanceByCardIdAndUserId(cardId, userId)
-                .orElseThrow(() -> new CardNotFoundException(CARD_NOT_FOUND_MESSAGE));
+        var cardBalance = getBalance(cardId, userId);
 
         return "Баланс карты: %s рублей".formatted(cardBalance.toString());
     }
@@ -48,72 +67,64 @@ public class UserCardService {
 
     @Transactional
     public String deposit(Long userId, Long cardId, FundsDto fundsDto) {
-        var card = getCardByCardIdAndUserId(cardId, userId);
-
-        validCardStatus(cardId, card);
-
-        card.setBalance(card.getBalance().add(fundsDto.funds())
-                .setScale(2, RoundingMode.HALF_UP));
-        card = cardRepository.saveAndFlush(card);
+        if (!ledgerService.credit(cardId, userId, fundsDto.funds(), LedgerOperation.DEPOSIT))
+            throw rejectionCause(cardId, userId, OPERATION_REJECTED_MESSAGE);
 
         return """
                 На карту внесено %s рублей.
                 Баланс карты составляет %s рублей
                 """
-                .formatted(fundsDto.funds().toString(), card.getBalance().toString());
+                .formatted(fundsDto.funds().toString(), getBalance(cardId, userId).toString());
     }
 
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String withdraw(Long userId, Long cardId, FundsDto fundsDto) {
-        var card = getCardByCardIdAndUserId(cardId, userId);
-
-        validCardStatus(cardId, card);
-
-        if (card.getBalance().compareTo(fundsDto.funds()) < 0)
-            throw new CardOperationFailedException(INSUFFICIENT_FUNDS_MESSAGE);
-
-        card.setBalance(card.getBalance().subtract(fundsDto.funds())
-                .setScale(2, RoundingMode.HALF_UP));
-        card = cardRepository.saveAndFlush(card);
+        var balance = ledgerService.debit(cardId, userId, fundsDto.funds(), LedgerOperation.WITHDRAWAL)
+                .orElseThrow(() -> rejectionCause(cardId, userId, INSUFFICIENT_FUNDS_MESSAGE));
 
         return """
                 С карты снято %s рублей.
                 Баланс карты составляет %s рублей
                 """
-                .formatted(fundsDto.funds().toString(), card.getBalance().toString());
+                .formatted(fundsDto.funds().toString(), balance.toString());
     }
 
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String transferToOwnCard(Long userId, TransferDto transferDto) {
+        if (transferDto.from().equals(transferDto.to()))
+            throw new CardOperationFailedException(SAME_CARD_MESSAGE);
+
         var fromCard = getCardByCardIdAndUserId(transferDto.from(), userId);
         var toCard = getCardByCardIdAndUserId(transferDto.to(), userId);
 
-        validCardStatus(fromCard.getId(), fromCard);
-        validCardStatus(toCard.getId(), toCard);
-
-        if (fromCard.equals(toCard))
-            throw new CardOperationFailedException("Вы пытаетесь перевести деньги на ту же карту, " +
-                    "с которой отправляете. \nВозможно, вы ошиблись.");
+        validCardStatus(fromCard);
+        validCardStatus(toCard);
 
-        if (fromCard.getBalance().compareTo(transferDto.funds()) < 0)
-            throw new CardOperationFailedException(INSUFFICIENT_FUNDS_MESSAGE);
-
-        fromCard.setBalance(fromCard.getBalance().subtract(transferDto.funds())
-                .setScale(2, RoundingMode.HALF_UP));
-
-        toCard.setBalance(toCard.getBalance().add(transferDto.funds())
-                .setScale(2, RoundingMode.HALF_UP));
+        transferExecutor.execute(() -> transfer(userId, transferDto));
 
         return "Совершен перевод %s рублей с карты %s на карту %s".formatted(
                 transferDto.funds(),
-                mask(fromCard.getCardNumber()),
-                mask(toCard.getCardNumber())
+                mask(fromCard),
+                mask(toCard)
         );
     }
 
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public TransferBatchResponseDto transferBatch(Long userId, TransferBatchDto batchDto) {
+        var results = transferExecutor.executeAndGet(() -> applyBatch(userId, batchDto.transfers()));
+        var succeeded = (int) results.stream().filter(TransferResultDto::success).count();
+
+        return TransferBatchResponseDto.builder()
+                .succeeded(succeeded)
+                .failed(results.size() - succeeded)
+                .results(results)
+                .build();
+    }
+
+
     public PageCardResponseDto searchUserCards(Pageable pageable,
                                                Long userId,
                                                Long cardId,
@@ -123,7 +134,7 @@ public class UserCardService {
             throw new UserNotFoundException("Пользователь не найден");
 
         Page<CardResponseDto> cards = cardRepository.findUserCards(pageable, userId, cardId, last4, status)
-                .map(card -> toDto(card, userId));
+                .map(this::toDto);
 
         return toPageDto(cards);
     }
@@ -149,30 +160,131 @@ public class UserCardService {
     }
 
 
+    private void transfer(Long userId, TransferDto transferDto) {
+        var cards = cardRepository.findCardsForUpdate(List.of(transferDto.from(), transferDto.to()), userId);
+
+        if (cards.size() != 2)
+            throw new CardNotFoundException(CARD_NOT_FOUND_MESSAGE);
+
+        if (!cards.stream().allMatch(this::isOperable))
+            throw new CardOperationFailedException(OPERATION_REJECTED_MESSAGE);
+
+        ledgerService.debit(transferDto.from(), userId, transferDto.funds(), LedgerOperation.TRANSFER_OUT)
+                .orElseThrow(() -> new CardOperationFailedException(INSUFFICIENT_FUNDS_MESSAGE));
+
+        if (!ledgerService.credit(transferDto.to(), userId, transferDto.funds(), LedgerOperation.TRANSFER_IN))
+            throw new CardOperationFailedException(OPERATION_REJECTED_MESSAGE);
+    }
+
+
+    private List<TransferResultDto> applyBatch(Long userId, List<TransferDto> transfers) {
+        var cardIds = transfers.stream()
+                .flatMap(transfer -> Stream.of(transfer.from(), transfer.to()))
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        var cards = cardRepository.findCardsForUpdate(cardIds, userId).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        ledgerService.settle(cards.values());
+
+        List<TransferResultDto> results = new ArrayList<>(transfers.size());
+        List<CardLedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            var rejection = batchRejection(transfer, cards);
+
+            if (rejection == null)
+                entries.addAll(ledgerService.move(cards.get(transfer.from()), cards.get(transfer.to()), transfer.funds()));
+
+            results.add(TransferResultDto.builder()
+                    .index(i)
+                    .from(transfer.from())
+                    .to(transfer.to())
+                    .funds(transfer.funds())
+                    .success(rejection == null)
+                    .message(rejection == null ? "Перевод выполнен" : rejection)
+                    .build());
+        }
+
+        ledgerService.record(entries);
+
+        return results;
+    }
+
+
+    private String batchRejection(TransferDto transfer, Map<Long, Card> cards) {
+        if (transfer.from().equals(transfer.to()))
+            return SAME_CARD_MESSAGE;
+
+        var fromCard = cards.get(transfer.from());
+        var toCard = cards.get(transfer.to());
+
+        if (fromCard == null || toCard == null)
+            return CARD_NOT_FOUND_MESSAGE;
+
+        if (!isOperable(fromCard) || !isOperable(toCard))
+            return OPERATION_REJECTED_MESSAGE;
+
+        if (fromCard.getBalance().compareTo(transfer.funds()) < 0)
+            return INSUFFICIENT_FUNDS_MESSAGE;
+
+        return null;
+    }
+
+
+    private BigDecimal getBalance(Long cardId, Long userId) {
+        return cardRepository.getBalanceByCardIdAndUserId(cardId, userId)
+                .orElseThrow(() -> new CardNotFoundException(CARD_NOT_FOUND_MESSAGE));
+    }
+
+
+    private CardOperationFailedException rejectionCause(Long cardId, Long userId, String fallbackMessage) {
+        var card = getCardByCardIdAndUserId(cardId, userId);
+
+        validCardStatus(card);
+
+        return new CardOperationFailedException(fallbackMessage);
+    }
+
+
     private Card getCardByCardIdAndUserId(Long cardId, Long userId) {
         return cardRepository.findCardByCardIdAndUserId(cardId, userId)
                 .orElseThrow(() -> new CardNotFoundException(CARD_NOT_FOUND_MESSAGE));
     }
 
 
-    private String mask(String cardNumber) {
-        return CardMasker.maskCard(cardNumber);
+    private String mask(Card card) {
+        return CardMasker.maskLast4(card.getLast4());
     }
 
 
     private CardResponseDto toDto(Card card, Long userId) {
         return CardResponseDto.builder()
                 .id(card.getId())
-                .cardNumber(mask(card.getCardNumber()))
+                .cardNumber(mask(card))
                 .placeholder(card.getPlaceholder())
                 .expirationDate(card.getExpirationDate())
                 .status(card.getStatus())
-                .balance(card.getBalance())
+                .balance(card.getAvailableBalance())
                 .userId(userId)
                 .build();
     }
 
 
+    private CardResponseDto toDto(CardView card) {
+        return CardResponseDto.builder()
+                .id(card.id())
+                .cardNumber(CardMasker.maskLast4(card.last4()))
+                .placeholder(encryptor.decrypt(card.encryptedPlaceholder()))
+                .expirationDate(card.expirationDate())
+                .status(card.status())
+                .balance(card.balance())
+                .userId(card.userId())
+                .build();
+    }
+
+
     private PageCardResponseDto toPageDto(Page<CardResponseDto> page) {
         return PageCardResponseDto.builder()
                 .content(page.getContent())
@@ -181,11 +293,19 @@ public class UserCardService {
                 .totalPages(page.getTotalPages())
                 .totalElements(page.getTotalElements())
                 .last(page.isLast())
+                .approximateTotal(false)
                 .build();
     }
 
 
-    private void validCardStatus(Long cardId, Card card) {
+    private boolean isOperable(Card card) {
+        return card.getStatus() != CardStatus.BLOCKED
+                && card.getStatus() != CardStatus.EXPIRED
+                && !card.getExpirationDate().isBefore(LocalDate.now());
+    }
+
+
+    private void validCardStatus(Card card) {
         if (card.getStatus() == CardStatus.BLOCKED) {
             throw new CardStatusException("Операция отклонена. Карта заблокирована");
         }
@@ -195,7 +315,6 @@ public class UserCardService {
         }
 
         if (card.getExpirationDate().isBefore(LocalDate.now())) {
-            statusChanger.changeStatus(cardId);
             throw new CardStatusException(CARD_EXPIRED_SUPPORT_MESSAGE);
         }
     }
@@ -1,5 +1,6 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.user.CursorPageUserResponseDto;
 import com.example.bankcards.dto.user.PageUserResponseDto;
 import com.example.bankcards.dto.user.UserRegisterRequestDto;
 import com.example.bankcards.dto.user.UserResponseDto;
@@ -11,12 +12,21 @@ import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.UserView;
+import com.example.bankcards.security.PrincipalCache;
+import com.example.bankcards.security.RevokedUserRegistry;
+import com.example.bankcards.util.PageCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.ArrayList;
 import java.util.Set;
@@ -33,22 +43,32 @@ public class UserService {
     private final CardRepository cardRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final RevokedUserRegistry revokedUserRegistry;
+    private final TransactionOperations transactionOperations;
 
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String registerUser(UserRegisterRequestDto dto) {
         if (userRepository.existsByPhoneNumber(dto.phoneNumber()))
             throw new UserAlreadyRegisteredException("Пользователь с таким номером телефона уже зарегистрирован");
 
-        var newUser = toUser(dto);
-        userRepository.save(newUser);
+        var encodedPassword = passwordEncoder.encode(dto.password());
+        var newUser = transactionOperations.execute(status -> userRepository.save(toUser(dto, encodedPassword)));
 
         return "Пользователь %s %s успешно зарегистрирован в системе"
                 .formatted(newUser.getLastName(), newUser.getFirstName());
     }
 
 
-    public PageUserResponseDto getAllUsers(Pageable pageable) {
+    public PageUserResponseDto getAllUsers(Pageable pageable, boolean withTotal, boolean approximateTotal) {
+        if (!withTotal)
+            return userSliceResponseDto(userRepository.findUserSlice(pageable).map(this::toUserResponseDto));
+
+        if (approximateTotal)
+            return userApproximatePageResponseDto(userRepository.findUserSlice(pageable).map(this::toUserResponseDto),
+                    userRepository.estimateUserCount());
+
         Page<UserResponseDto> page = userRepository.findAll(pageable)
                 .map(this::toUserResponseDto);
 
@@ -56,6 +76,19 @@ public class UserService {
     }
 
 
+    public CursorPageUserResponseDto getAllUsersAfter(String after, int size) {
+        var users = userRepository.findUsersAfter(PageCursor.decode(after), Limit.of(size + 1));
+        var hasNext = users.size() > size;
+        var content = hasNext ? users.subList(0, size) : users;
+
+        return CursorPageUserResponseDto.builder()
+                .content(content.stream().map(this::toUserResponseDto).toList())
+                .size(size)
+                .next(hasNext ? PageCursor.encode(content.get(size - 1).id()) : null)
+                .build();
+    }
+
+
     public UserResponseDto getUserById(Long id) {
         var user = getUser(id);
 
@@ -85,6 +118,8 @@ public class UserService {
             cardRepository.saveAll(user.getCards());
         }
 
+        principalCache.evictByUserId(id);
+
         return toUserResponseDto(user);
     }
 
@@ -95,6 +130,8 @@ public class UserService {
             throw new UserNotFoundException(USER_NOT_FOUND_MESSAGE);
 
         userRepository.deleteById(id);
+        principalCache.evictByUserId(id);
+        revokedUserRegistry.revoke(id);
 
         return "Пользователь с ID '%d' был удален".formatted(id);
     }
@@ -106,7 +143,7 @@ public class UserService {
     }
 
 
-    private User toUser(UserRegisterRequestDto dto) {
+    private User toUser(UserRegisterRequestDto dto, String encodedPassword) {
         var role = roleRepository.findByName(ROLE_USER)
                 .orElseGet(() -> Role.builder().name(ROLE_USER).build());
 
@@ -114,7 +151,7 @@ public class UserService {
                 .firstName(dto.firstName())
                 .lastName(dto.lastName())
                 .phoneNumber(dto.phoneNumber())
-                .password(passwordEncoder.encode(dto.password()))
+                .password(encodedPassword)
                 .roles(Set.of(role))
                 .cards(new ArrayList<>())
                 .build();
@@ -131,6 +168,16 @@ public class UserService {
     }
 
 
+    private UserResponseDto toUserResponseDto(UserView user) {
+        return UserResponseDto.builder()
+                .id(user.id())
+                .firstName(user.firstName())
+                .lastName(user.lastName())
+                .phoneNumber(user.phoneNumber())
+                .build();
+    }
+
+
     private PageUserResponseDto userPageResponseDto(Page<UserResponseDto> page) {
         return PageUserResponseDto.builder()
                 .content(page.getContent())
@@ -139,6 +186,32 @@ public class UserService {
                 .totalPages(page.getTotalPages())
                 .totalElements(page.getTotalElements())
                 .last(page.isLast())
+                .approximateTotal(false)
+                .build();
+    }
+
+
+    private PageUserResponseDto userSliceResponseDto(Slice<UserResponseDto> slice) {
+        return PageUserResponseDto.builder()
+                .content(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .last(slice.isLast())
+                .build();
+    }
+
+
+    private PageUserResponseDto userApproximatePageResponseDto(Slice<UserResponseDto> slice, long estimatedTotal) {
+        var page = new PageImpl<>(slice.getContent(), slice.getPageable(), estimatedTotal);
+
+        return PageUserResponseDto.builder()
+                .content(slice.getContent())
+                .page(slice.getNumber())
+                .size(slice.getSize())
+                .totalPages(page.getTotalPages())
+                .totalElements(page.getTotalElements())
+                .last(slice.isLast())
+                .approximateTotal(true)
                 .build();
     }
 }
@@ -0,0 +1,44 @@
+package com.example.bankcards.util;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Component
+@RequiredArgsConstructor
+public class AdvisoryLock {
+
+    private final DataSource dataSource;
+
+
+    public boolean runExclusively(long key, Runnable task) {
+        try (var connection = dataSource.getConnection()) {
+            if (!call(connection, "select pg_try_advisory_lock(?)", key))
+                return false;
+
+            try {
+                task.run();
+            } finally {
+                call(connection, "select pg_advisory_unlock(?)", key);
+            }
+
+            return true;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось получить блокировку " + key, e);
+        }
+    }
+
+
+    private boolean call(Connection connection, String sql, long key) throws SQLException {
+        try (var statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, key);
+
+            try (var resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
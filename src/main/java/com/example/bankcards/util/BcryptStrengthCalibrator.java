@@ -0,0 +1,42 @@
+package com.example.bankcards.util;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+public class BcryptStrengthCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample";
+    private static final int SAMPLES = 3;
+
+    private BcryptStrengthCalibrator() {
+    }
+
+
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        if (minStrength < 4 || maxStrength > 31 || minStrength > maxStrength)
+            throw new IllegalArgumentException("Некорректный диапазон стоимости BCrypt: %d..%d"
+                    .formatted(minStrength, maxStrength));
+
+        var encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode(SAMPLE_PASSWORD);
+
+        var elapsed = Long.MAX_VALUE;
+
+        for (int i = 0; i < SAMPLES; i++) {
+            var start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            elapsed = Math.min(elapsed, System.nanoTime() - start);
+        }
+
+        var strength = minStrength;
+        var target = targetLatency.toNanos();
+
+        while (strength < maxStrength && elapsed * 2 <= target) {
+            strength++;
+            elapsed *= 2;
+        }
+
+        return strength;
+    }
+}
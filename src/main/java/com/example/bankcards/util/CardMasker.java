@@ -19,4 +19,13 @@ public final class CardMasker {
                 : FULL_MASK;
     }
 
+
+    public static String maskLast4(String last4) {
+        if (last4 == null || last4.isEmpty())
+            throw new IllegalArgumentException("Неверное значение строки last4: null или пустая строка");
+
+        return last4.length() == 4
+                ? MASK + last4
+                : FULL_MASK;
+    }
 }
@@ -1,21 +1,129 @@
 package com.example.bankcards.util;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Random;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 
 @Component
 public class CardNumberGenerator {
 
-    private final Random random = new Random();
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final int BIN_LENGTH = 6;
+    private static final long ACCOUNT_RANGE = 1_000_000_000L;
+    private static final int HALF_BITS = 15;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 6;
 
-    public String generate() {
-        var sb = new StringBuilder();
+    private final String bin;
+    private final long[] roundKeys;
 
-        for (int i = 0; i < 16; i++) {
-            sb.append(random.nextInt(10));
+
+    public CardNumberGenerator(@Value("${cards.number.bin}") String bin,
+                               @Value("${encryption.secret}") String secret) {
+        if (bin == null || !bin.matches("\\d{" + BIN_LENGTH + "}"))
+            throw new IllegalArgumentException("BIN должен состоять из %d цифр".formatted(BIN_LENGTH));
+
+        this.bin = bin;
+        this.roundKeys = deriveRoundKeys(secret);
+    }
+
+
+    public String generate(long sequence) {
+        if (sequence < 0 || sequence >= ACCOUNT_RANGE)
+            throw new IllegalStateException("Исчерпан диапазон номеров карт для BIN " + bin);
+
+        var digits = new char[CARD_NUMBER_LENGTH];
+        bin.getChars(0, BIN_LENGTH, digits, 0);
+
+        var account = permute(sequence);
+
+        for (int i = CARD_NUMBER_LENGTH - 2; i >= BIN_LENGTH; i--) {
+            digits[i] = (char) ('0' + account % 10);
+            account /= 10;
+        }
+
+        digits[CARD_NUMBER_LENGTH - 1] = checkDigit(digits);
+
+        return new String(digits);
+    }
+
+
+    private long permute(long value) {
+        var result = value;
+
+        do {
+            result = encryptBlock(result);
+        } while (result >= ACCOUNT_RANGE);
+
+        return result;
+    }
+
+
+    private long encryptBlock(long block) {
+        var left = block >>> HALF_BITS;
+        var right = block & HALF_MASK;
+
+        for (long roundKey : roundKeys) {
+            var next = left ^ round(right, roundKey);
+            left = right;
+            right = next;
         }
 
-        return sb.toString();
+        return (left << HALF_BITS) | right;
+    }
+
+
+    private static long round(long half, long roundKey) {
+        var x = half ^ roundKey;
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        x = x ^ (x >>> 31);
+
+        return x & HALF_MASK;
+    }
+
+
+    private static char checkDigit(char[] digits) {
+        var sum = 0;
+        var doubled = true;
+
+        for (int i = digits.length - 2; i >= 0; i--) {
+            var digit = digits[i] - '0';
+
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9)
+                    digit -= 9;
+            }
+
+            sum += digit;
+            doubled = !doubled;
+        }
+
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            var mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+
+            var keys = new long[ROUNDS];
+
+            for (int i = 0; i < ROUNDS; i++) {
+                var digest = mac.doFinal(("card-number-round-" + i).getBytes(StandardCharsets.UTF_8));
+                keys[i] = ByteBuffer.wrap(digest).getLong();
+            }
+
+            return keys;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
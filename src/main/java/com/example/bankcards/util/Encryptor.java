@@ -3,30 +3,125 @@ package com.example.bankcards.util;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.HexFormat;
 
 @Component
 public class Encryptor {
 
+    private static final String VERSION_PREFIX = "v1:";
+    private static final String CIPHER_ALGORITHM = "AES/GCM/NoPadding";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(CIPHER_ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     private final String secret;
+    private final SecretKeySpec encryptionKey;
+    private final ThreadLocal<Mac> indexMacs;
+    private final SecureRandom random = new SecureRandom();
+
 
     public Encryptor(@Value("${encryption.secret}") String secret) {
         this.secret = secret;
+        this.encryptionKey = new SecretKeySpec(deriveKey(secret, "card-encryption"), "AES");
+
+        var indexKey = new SecretKeySpec(deriveKey(secret, "card-blind-index"), MAC_ALGORITHM);
+
+        this.indexMacs = ThreadLocal.withInitial(() -> newMac(indexKey));
     }
 
 
     public String encrypt(String toEncode) {
-        return Base64.getEncoder().encodeToString(
-                (toEncode + secret).getBytes(StandardCharsets.UTF_8)
-        );
+        var iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+
+        try {
+            var cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+
+            var cipherText = cipher.doFinal(toEncode.getBytes(StandardCharsets.UTF_8));
+            var payload = ByteBuffer.allocate(IV_LENGTH + cipherText.length)
+                    .put(iv)
+                    .put(cipherText)
+                    .array();
+
+            return VERSION_PREFIX + Base64.getEncoder().encodeToString(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось зашифровать данные карты", e);
+        }
     }
 
 
     public String decrypt(String toDecode) {
+        if (!isCurrent(toDecode))
+            return decryptLegacy(toDecode);
+
+        var payload = Base64.getDecoder().decode(toDecode.substring(VERSION_PREFIX.length()));
+
+        try {
+            var cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(TAG_LENGTH_BITS, payload, 0, IV_LENGTH));
+
+            var plainText = cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH);
+
+            return new String(plainText, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Не удалось расшифровать данные карты", e);
+        }
+    }
+
+
+    public String blindIndex(String value) {
+        var digest = indexMacs.get().doFinal(value.getBytes(StandardCharsets.UTF_8));
+
+        return HexFormat.of().formatHex(digest);
+    }
+
+
+    public boolean isCurrent(String encrypted) {
+        return encrypted.startsWith(VERSION_PREFIX);
+    }
+
+
+    private String decryptLegacy(String toDecode) {
         byte[] bytes = Base64.getDecoder().decode(toDecode.getBytes(StandardCharsets.UTF_8));
-        var result = new String(bytes);
+        var result = new String(bytes, StandardCharsets.UTF_8);
 
         return result.replace(secret, "");
     }
+
+
+    private static byte[] deriveKey(String secret, String purpose) {
+        var mac = newMac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM));
+
+        return mac.doFinal(purpose.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            var mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
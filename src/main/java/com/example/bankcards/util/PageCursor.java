@@ -0,0 +1,39 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public final class PageCursor {
+
+    private static final String INVALID_CURSOR_MESSAGE = "Некорректный курсор страницы";
+
+
+    private PageCursor() {
+    }
+
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return 0L;
+
+        long id;
+
+        try {
+            id = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+        }
+
+        if (id < 0)
+            throw new IllegalArgumentException(INVALID_CURSOR_MESSAGE);
+
+        return id;
+    }
+}
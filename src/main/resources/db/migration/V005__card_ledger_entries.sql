@@ -0,0 +1,13 @@
+create table if not exists card_ledger_entries
+(
+    id         bigserial primary key,
+    card_id    bigint         not null references cards (id) on delete cascade,
+    operation  varchar(32)    not null check (operation in ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER_IN', 'TRANSFER_OUT')),
+    amount     numeric(14, 2) not null,
+    applied    boolean        not null default false,
+    created_at timestamp               default now()
+);
+
+create index if not exists idx_card_ledger_entries_pending
+    on card_ledger_entries (card_id)
+    where applied = false;
@@ -0,0 +1,16 @@
+create table if not exists idempotency_keys
+(
+    id              bigserial primary key,
+    user_id         bigint       not null references users (id) on delete cascade,
+    idempotency_key varchar(64)  not null,
+    request_hash    varchar(64)  not null,
+    status_code     integer,
+    content_type    varchar(128),
+    response_body   text,
+    created_at      timestamp    not null default now(),
+    expires_at      timestamp    not null,
+    unique (user_id, idempotency_key)
+);
+
+create index if not exists idx_idempotency_keys_expires_at
+    on idempotency_keys (expires_at);
@@ -0,0 +1,9 @@
+alter table cards
+    add column if not exists card_number_hash varchar(64);
+
+alter table cards
+    alter column encrypted_card_number type varchar(1024),
+    alter column encrypted_placeholder type varchar(1024);
+
+create unique index if not exists ux_cards_card_number_hash
+    on cards (card_number_hash);
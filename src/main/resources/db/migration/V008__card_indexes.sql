@@ -0,0 +1,9 @@
+create index if not exists idx_cards_user_id_id
+    on cards (user_id, id);
+
+create index if not exists idx_cards_user_id_last4
+    on cards (user_id, last4);
+
+create index if not exists idx_cards_expiration_date_unexpired
+    on cards (expiration_date)
+    where status <> 'EXPIRED';
@@ -0,0 +1,4 @@
+create sequence if not exists card_number_seq
+    start with 1
+    maxvalue 999999999
+    no cycle;
@@ -0,0 +1 @@
+alter sequence cards_id_seq increment by 50;
@@ -0,0 +1,36 @@
+package com.example.bankcards;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+
+    public static List<String> capture(Runnable action) {
+        var statements = new ArrayList<String>();
+        CAPTURED.set(statements);
+
+        try {
+            action.run();
+        } finally {
+            CAPTURED.remove();
+        }
+
+        return statements;
+    }
+
+
+    @Override
+    public String inspect(String sql) {
+        var statements = CAPTURED.get();
+
+        if (statements != null)
+            statements.add(sql);
+
+        return sql;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bankcards.aspect;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.util.Encryptor;
+import org.aspectj.lang.JoinPoint;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EncryptCardAspectTest {
+
+    @Mock
+    private Encryptor encryptor;
+
+    @InjectMocks
+    private EncryptCardAspect encryptCardAspect;
+
+
+    @Test
+    void decryptAfterLoad_page_noDecryptionUntilRead() {
+        var cards = List.of(card(1L), card(2L), card(3L));
+
+        encryptCardAspect.decryptAfterLoad(new PageImpl<>(cards));
+
+        cards.forEach(Card::getLast4);
+
+        verifyNoInteractions(encryptor);
+    }
+
+
+    @Test
+    void decryptAfterLoad_decryptsOnceOnFirstRead() {
+        var card = card(1L);
+
+        when(encryptor.decrypt("v1:number")).thenReturn("2502551189197221");
+
+        encryptCardAspect.decryptAfterLoad(card);
+
+        assertEquals("2502551189197221", card.getCardNumber());
+        assertEquals("2502551189197221", card.getCardNumber());
+
+        verify(encryptor).decrypt("v1:number");
+    }
+
+
+    @Test
+    void encryptBeforeSave_unchangedLoadedCard_skipsDecryption() {
+        var card = card(1L);
+
+        when(encryptor.isCurrent("v1:number")).thenReturn(true);
+        when(encryptor.isCurrent("v1:placeholder")).thenReturn(true);
+
+        encryptCardAspect.decryptAfterLoad(card);
+        encryptCardAspect.encryptBeforeSave(joinPoint(card));
+
+        assertEquals("v1:number", card.getEncryptedCardNumber());
+        assertEquals("v1:placeholder", card.getEncryptedPlaceholder());
+
+        verify(encryptor, never()).decrypt(anyString());
+        verify(encryptor, never()).encrypt(anyString());
+    }
+
+
+    @Test
+    void encryptBeforeSave_sameCardNumber_comparesBlindIndex() {
+        var card = card(1L);
+        card.setCardNumber("2502551189197221");
+
+        when(encryptor.isCurrent("v1:number")).thenReturn(true);
+        when(encryptor.isCurrent("v1:placeholder")).thenReturn(true);
+        when(encryptor.blindIndex("2502551189197221")).thenReturn("hash");
+
+        encryptCardAspect.encryptBeforeSave(joinPoint(card));
+
+        assertEquals("v1:number", card.getEncryptedCardNumber());
+        assertFalse(card.isCardNumberChanged());
+
+        verify(encryptor, never()).decrypt(anyString());
+        verify(encryptor, never()).encrypt(anyString());
+    }
+
+
+    @Test
+    void encryptBeforeSave_changedPlaceholder_reEncrypts() {
+        var card = card(1L);
+        card.setPlaceholder("Петр Петров");
+
+        when(encryptor.isCurrent("v1:number")).thenReturn(true);
+        when(encryptor.encrypt("Петр Петров")).thenReturn("v1:renamed");
+
+        encryptCardAspect.encryptBeforeSave(joinPoint(card));
+
+        assertEquals("v1:number", card.getEncryptedCardNumber());
+        assertEquals("v1:renamed", card.getEncryptedPlaceholder());
+        assertFalse(card.isPlaceholderChanged());
+
+        verify(encryptor, never()).decrypt(anyString());
+    }
+
+
+    @Test
+    void encryptBeforeSave_newCard_encryptsAndIndexes() {
+        var card = Card.builder()
+                .cardNumber("2502551189197221")
+                .placeholder("Иван Иванов")
+                .build();
+
+        when(encryptor.encrypt("2502551189197221")).thenReturn("v1:number");
+        when(encryptor.encrypt("Иван Иванов")).thenReturn("v1:placeholder");
+        when(encryptor.blindIndex("2502551189197221")).thenReturn("hash");
+
+        encryptCardAspect.encryptBeforeSave(joinPoint(card));
+
+        assertEquals("v1:number", card.getEncryptedCardNumber());
+        assertEquals("v1:placeholder", card.getEncryptedPlaceholder());
+        assertEquals("hash", card.getCardNumberHash());
+        assertEquals("7221", card.getLast4());
+    }
+
+
+    private JoinPoint joinPoint(Object... args) {
+        var joinPoint = mock(JoinPoint.class);
+
+        when(joinPoint.getArgs()).thenReturn(args);
+
+        return joinPoint;
+    }
+
+
+    private Card card(Long id) {
+        return Card.builder()
+                .id(id)
+                .encryptedCardNumber("v1:number")
+                .encryptedPlaceholder("v1:placeholder")
+                .cardNumberHash("hash")
+                .last4("7221")
+                .build();
+    }
+}
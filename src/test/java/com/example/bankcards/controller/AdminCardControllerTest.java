@@ -1,11 +1,16 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.card.CardIssuanceBatchDto;
+import com.example.bankcards.dto.card.CardIssuanceBatchResponseDto;
+import com.example.bankcards.dto.card.CardIssuanceChunkDto;
 import com.example.bankcards.dto.card.CardResponseDto;
+import com.example.bankcards.dto.card.CursorPageCardResponseDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.security.JwtAuthenticationFilter;
 import com.example.bankcards.security.JwtService;
 import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.CardIssuanceService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,12 +27,17 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -60,6 +70,9 @@ class AdminCardControllerTest {
     @MockitoBean
     private AdminCardService adminCardService;
 
+    @MockitoBean
+    private CardIssuanceService cardIssuanceService;
+
     @MockitoBean
     private JwtService jwtService;
 
@@ -106,6 +119,43 @@ class AdminCardControllerTest {
     }
 
 
+    @Test
+    void issueCards_200() throws Exception {
+        var batchDto = new CardIssuanceBatchDto(List.of(USER_ID, 3L));
+
+        var response = CardIssuanceBatchResponseDto.builder()
+                .issued(1)
+                .failed(1)
+                .chunks(List.of(new CardIssuanceChunkDto(0, 1, 1, List.of(3L))))
+                .build();
+
+        when(cardIssuanceService.issueCards(any(CardIssuanceBatchDto.class))).thenReturn(response);
+
+        mockMvc.perform(post(URL + "/batch")
+                        .content(objectMapper.writeValueAsString(batchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding(StandardCharsets.UTF_8))
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(response)));
+
+        verify(cardIssuanceService).issueCards(batchDto);
+    }
+
+
+    @Test
+    void issueCards_emptyBatch_400() throws Exception {
+        var batchDto = new CardIssuanceBatchDto(List.of());
+
+        mockMvc.perform(post(URL + "/batch")
+                        .content(objectMapper.writeValueAsString(batchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding(StandardCharsets.UTF_8))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(cardIssuanceService);
+    }
+
+
     @Test
     void blockCard_200() throws Exception {
         var message = "Карта %s заблокирована".formatted(HIDDEN_CARD_NUMBER);
@@ -152,7 +202,7 @@ class AdminCardControllerTest {
     void viewAllCards_200() throws Exception {
         var pageable = PageRequest.of(0, 3);
 
-        when(adminCardService.getAllCards(any(Pageable.class)))
+        when(adminCardService.getAllCards(any(Pageable.class), anyBoolean(), anyBoolean()))
                 .thenReturn(pageCardResponseDto);
 
         mockMvc.perform(get(URL)
@@ -164,7 +214,30 @@ class AdminCardControllerTest {
                         objectMapper.writeValueAsString(pageCardResponseDto))
                 );
 
-        verify(adminCardService).getAllCards(pageable);
+        verify(adminCardService).getAllCards(pageable, true, false);
+    }
+
+
+    @Test
+    void viewAllCardsAfter_200() throws Exception {
+        var cursorPage = CursorPageCardResponseDto.builder()
+                .content(pageCardResponseDto.content())
+                .size(3)
+                .next("MQ")
+                .build();
+
+        when(adminCardService.getAllCardsAfter(anyString(), anyInt()))
+                .thenReturn(cursorPage);
+
+        mockMvc.perform(get(URL + "/cursor")
+                        .param("after", "MA")
+                        .param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(cursorPage))
+                );
+
+        verify(adminCardService).getAllCardsAfter("MA", 3);
     }
 
 
@@ -172,7 +245,7 @@ class AdminCardControllerTest {
     void viewUserCards_200() throws Exception {
         var pageable = PageRequest.of(0, 3);
 
-        when(adminCardService.getUserCards(anyLong(), any(Pageable.class)))
+        when(adminCardService.getUserCards(anyLong(), any(Pageable.class), anyBoolean()))
                 .thenReturn(pageCardResponseDto);
 
         mockMvc.perform(get(URL + "/user/{id}", USER_ID)
@@ -183,6 +256,6 @@ class AdminCardControllerTest {
                         objectMapper.writeValueAsString(pageCardResponseDto)
                 ));
 
-        verify(adminCardService).getUserCards(USER_ID, pageable);
+        verify(adminCardService).getUserCards(USER_ID, pageable, true);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.user.CursorPageUserResponseDto;
 import com.example.bankcards.dto.user.PageUserResponseDto;
 import com.example.bankcards.dto.user.UserResponseDto;
 import com.example.bankcards.dto.user.UserUpdateRequestDto;
@@ -25,6 +26,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyBoolean;
+import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.verify;
@@ -92,7 +95,7 @@ class AdminControllerTest {
     void getAllUsers_200() throws Exception {
         var pageable = PageRequest.of(0, 3);
 
-        when(userService.getAllUsers(any(Pageable.class)))
+        when(userService.getAllUsers(any(Pageable.class), anyBoolean(), anyBoolean()))
                 .thenReturn(pageUserResponseDto);
 
         mockMvc.perform(get(URL)
@@ -103,7 +106,28 @@ class AdminControllerTest {
                         objectMapper.writeValueAsString(pageUserResponseDto)
                 ));
 
-        verify(userService).getAllUsers(pageable);
+        verify(userService).getAllUsers(pageable, true, false);
+    }
+
+
+    @Test
+    void getAllUsersAfter_200() throws Exception {
+        var cursorPage = CursorPageUserResponseDto.builder()
+                .content(List.of(userResponseDto))
+                .size(50)
+                .next(null)
+                .build();
+
+        when(userService.getAllUsersAfter(any(), anyInt()))
+                .thenReturn(cursorPage);
+
+        mockMvc.perform(get(URL + "/cursor"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(cursorPage)
+                ));
+
+        verify(userService).getAllUsersAfter(null, 50);
     }
 
 
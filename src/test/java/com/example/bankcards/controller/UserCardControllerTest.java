@@ -5,7 +5,10 @@ import com.example.bankcards.dto.card.FundsDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.dto.card.RequestCardBlockDto;
 import com.example.bankcards.dto.card.ResponseCardBlockDto;
+import com.example.bankcards.dto.card.TransferBatchDto;
+import com.example.bankcards.dto.card.TransferBatchResponseDto;
 import com.example.bankcards.dto.card.TransferDto;
+import com.example.bankcards.dto.card.TransferResultDto;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.security.CustomUserDetails;
 import com.example.bankcards.security.JwtAuthenticationFilter;
@@ -38,6 +41,7 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -237,6 +241,55 @@ class UserCardControllerTest {
     }
 
 
+    @Test
+    void transferBatch_200() throws Exception {
+        var batchDto = new TransferBatchDto(List.of(
+                new TransferDto(CARD_ID, 3L, new BigDecimal("5000.00")),
+                new TransferDto(3L, CARD_ID, new BigDecimal("100.00"))
+        ));
+
+        var response = TransferBatchResponseDto.builder()
+                .succeeded(1)
+                .failed(1)
+                .results(List.of(
+                        new TransferResultDto(0, CARD_ID, 3L, new BigDecimal("5000.00"), true, "Перевод выполнен"),
+                        new TransferResultDto(1, 3L, CARD_ID, new BigDecimal("100.00"), false,
+                                "Недостаточно средств на карте")
+                ))
+                .build();
+
+        when(userCardService.transferBatch(anyLong(), any(TransferBatchDto.class)))
+                .thenReturn(response);
+
+        mockMvc.perform(patch(URL + "/transfer/batch")
+                        .with(user(customUserDetails))
+                        .content(objectMapper.writeValueAsString(batchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding(StandardCharsets.UTF_8))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        objectMapper.writeValueAsString(response)
+                ));
+
+        verify(userCardService).transferBatch(USER_ID, batchDto);
+    }
+
+
+    @Test
+    void transferBatch_emptyBatch_400() throws Exception {
+        var batchDto = new TransferBatchDto(List.of());
+
+        mockMvc.perform(patch(URL + "/transfer/batch")
+                        .with(user(customUserDetails))
+                        .content(objectMapper.writeValueAsString(batchDto))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .characterEncoding(StandardCharsets.UTF_8))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userCardService);
+    }
+
+
     @Test
     void requestCardBlock_200() throws Exception {
         var reason = "Данные карты похитили мошенники";
@@ -0,0 +1,49 @@
+package com.example.bankcards.filter;
+
+import jakarta.servlet.ReadListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachedBodyRequestWrapperTest {
+
+    private static final String BODY = "{\"funds\":5000.00}";
+
+
+    @Test
+    void setReadListener_deliversBufferedBody() throws IOException {
+        var request = new MockHttpServletRequest("PATCH", "/api/v1/users/cards/balance/2/withdraw");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+
+        var input = new CachedBodyRequestWrapper(request).getInputStream();
+        var received = new ByteArrayOutputStream();
+        var completed = new boolean[1];
+
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (input.isReady() && !input.isFinished())
+                    received.write(input.read());
+            }
+
+            @Override
+            public void onAllDataRead() {
+                completed[0] = true;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        assertEquals(BODY, received.toString(StandardCharsets.UTF_8));
+        assertTrue(completed[0]);
+    }
+}
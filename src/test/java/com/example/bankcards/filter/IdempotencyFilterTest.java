@@ -0,0 +1,184 @@
+package com.example.bankcards.filter;
+
+import com.example.bankcards.dto.idempotency.IdempotentResponse;
+import com.example.bankcards.exception.ConcurrentOperationException;
+import com.example.bankcards.security.CustomUserDetails;
+import com.example.bankcards.service.IdempotencyService;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    private static final long USER_ID = 1L;
+    private static final String KEY = "3f1c2a4e-7d1b-4c55-9a0e-2b8f6a1d9c77";
+    private static final String URL = "/api/v1/users/cards/balance/2/withdraw";
+    private static final String MESSAGE = "С карты снято 5000.00 рублей.";
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @InjectMocks
+    private IdempotencyFilter idempotencyFilter;
+
+    private AtomicInteger executions;
+    private MockFilterChain filterChain;
+
+
+    @BeforeEach
+    void setUp() {
+        var userDetails = new CustomUserDetails(
+                USER_ID, "9265847312", "encrypted_password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+
+        executions = new AtomicInteger();
+        filterChain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                executions.incrementAndGet();
+                resp.setContentType("text/plain;charset=UTF-8");
+                resp.getOutputStream().write(MESSAGE.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    void newKey_executesAndStoresResponse() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        when(idempotencyService.begin(anyLong(), anyString(), anyString()))
+                .thenReturn(Optional.empty());
+
+        idempotencyFilter.doFilter(request(), response, filterChain);
+
+        assertEquals(1, executions.get());
+        assertEquals(200, response.getStatus());
+        assertEquals(MESSAGE, response.getContentAsString(StandardCharsets.UTF_8));
+
+        verify(idempotencyService).complete(eq(USER_ID), eq(KEY), anyString(),
+                eq(new IdempotentResponse(200, "text/plain;charset=UTF-8", MESSAGE)));
+    }
+
+
+    @Test
+    void duplicateKey_replaysStoredResponse() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        when(idempotencyService.begin(anyLong(), anyString(), anyString()))
+                .thenReturn(Optional.of(new IdempotentResponse(200, "text/plain;charset=UTF-8", MESSAGE)));
+
+        idempotencyFilter.doFilter(request(), response, filterChain);
+
+        assertEquals(0, executions.get());
+        assertEquals(200, response.getStatus());
+        assertEquals("true", response.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(MESSAGE, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+
+    @Test
+    void keyInProgress_returnsConflict() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        when(idempotencyService.begin(anyLong(), anyString(), anyString()))
+                .thenThrow(new ConcurrentOperationException("Запрос с этим ключом идемпотентности еще обрабатывается"));
+
+        idempotencyFilter.doFilter(request(), response, filterChain);
+
+        assertEquals(0, executions.get());
+        assertEquals(409, response.getStatus());
+    }
+
+
+    @Test
+    void serverError_releasesKey() throws Exception {
+        var response = new MockHttpServletResponse();
+        var failingChain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                resp.setStatus(500);
+            }
+        });
+
+        when(idempotencyService.begin(anyLong(), anyString(), anyString()))
+                .thenReturn(Optional.empty());
+
+        idempotencyFilter.doFilter(request(), response, failingChain);
+
+        verify(idempotencyService).release(USER_ID, KEY);
+    }
+
+
+    @Test
+    void withoutHeader_passesThrough() throws Exception {
+        var request = request();
+        request.removeHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER);
+
+        idempotencyFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertEquals(1, executions.get());
+
+        verifyNoInteractions(idempotencyService);
+    }
+
+
+    @Test
+    void otherEndpoint_passesThrough() throws Exception {
+        var request = request();
+        request.setMethod("GET");
+        request.setRequestURI("/api/v1/users/cards/balance/2");
+
+        idempotencyFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertEquals(1, executions.get());
+
+        verifyNoInteractions(idempotencyService);
+    }
+
+
+    private MockHttpServletRequest request() {
+        var request = new MockHttpServletRequest("PATCH", URL);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, KEY);
+        request.setContentType("application/json");
+        request.setContent("{\"funds\":5000.00}".getBytes(StandardCharsets.UTF_8));
+
+        return request;
+    }
+}
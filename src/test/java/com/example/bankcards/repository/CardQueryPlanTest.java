@@ -0,0 +1,170 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.PostgresIntegrationTest;
+import com.example.bankcards.SqlCapture;
+import com.example.bankcards.entity.CardStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CardQueryPlanTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 2_000;
+    private static final int CARDS = 40_000;
+    private static final String PHONE_PREFIX = "7";
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long userId;
+
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("""
+                insert into users (first_name, last_name, phone_number, password)
+                select 'Иван', 'Иванов', '%s' || lpad(g::text, 9, '0'), 'encoded_password'
+                from generate_series(0, %d) g
+                """.formatted(PHONE_PREFIX, USERS - 1));
+
+        jdbcTemplate.update("""
+                insert into cards (encrypted_card_number, card_number_hash, last4, encrypted_placeholder,
+                                   expiration_date, status, balance, user_id)
+                select 'v1:plan' || g,
+                       'plan' || lpad(g::text, 60, '0'),
+                       lpad((g %% 10000)::text, 4, '0'),
+                       'v1:plan',
+                       current_date + case when g %% 1000 = 0 then -1 else g %% 1800 + 1 end,
+                       case when g %% 10 = 0 then 'BLOCKED' else 'ACTIVE' end,
+                       100.00,
+                       u.id
+                from generate_series(1, %d) g
+                join users u on u.phone_number = '%s' || lpad((g %% %d)::text, 9, '0')
+                """.formatted(CARDS, PHONE_PREFIX, USERS));
+
+        jdbcTemplate.execute("analyze users");
+        jdbcTemplate.execute("analyze cards");
+
+        userId = jdbcTemplate.queryForObject(
+                "select id from users where phone_number = ?", Long.class, PHONE_PREFIX + "%09d".formatted(1));
+    }
+
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("""
+                delete from cards
+                where user_id in (select id from users where phone_number like '%s%%')
+                """.formatted(PHONE_PREFIX));
+        jdbcTemplate.update("delete from users where phone_number like '%s%%'".formatted(PHONE_PREFIX));
+
+        jdbcTemplate.execute("analyze users");
+        jdbcTemplate.execute("analyze cards");
+    }
+
+
+    @Test
+    void findCardsByUserId_usesIndex() {
+        var statements = capture(() -> cardRepository.findCardsByUserId(userId, PageRequest.of(0, 5, Sort.by("id"))));
+
+        assertEquals(2, statements.size());
+        assertNoSeqScan(statements.get(0), userId, 5);
+        assertNoSeqScan(statements.get(1), userId);
+    }
+
+
+    @Test
+    void findUserCards_byLast4_usesIndex() {
+        var statements = capture(() -> cardRepository.findUserCards(PageRequest.of(0, 1), userId, null, "0001", null));
+
+        assertEquals(2, statements.size());
+        assertNoSeqScan(statements.get(0), BigDecimal.ZERO, userId, "0001", 0, 1);
+        assertNoSeqScan(statements.get(1), userId, "0001");
+    }
+
+
+    @Test
+    void findUserCards_byStatus_usesIndex() {
+        var statements = capture(() -> cardRepository.findUserCards(
+                PageRequest.of(0, 1), userId, null, null, CardStatus.ACTIVE));
+
+        assertEquals(2, statements.size());
+        assertNoSeqScan(statements.get(0), BigDecimal.ZERO, userId, CardStatus.ACTIVE.name(), 0, 1);
+        assertNoSeqScan(statements.get(1), userId, CardStatus.ACTIVE.name());
+    }
+
+
+    @Test
+    void findCardByCardIdAndUserId_usesIndex() {
+        var statements = capture(() -> cardRepository.findCardByCardIdAndUserId(100L, userId));
+
+        assertEquals(1, statements.size());
+        assertNoSeqScan(statements.get(0), 100L, userId);
+    }
+
+
+    @Test
+    void getBalanceByCardIdAndUserId_usesIndex() {
+        var statements = capture(() -> cardRepository.getBalanceByCardIdAndUserId(100L, userId));
+
+        assertEquals(1, statements.size());
+        assertNoSeqScan(statements.get(0), 100L, userId);
+    }
+
+
+    @Test
+    void findCardsAfter_usesIndex() {
+        var afterId = jdbcTemplate.queryForObject("select min(id) + 20000 from cards", Long.class);
+        var statements = capture(() -> cardRepository.findCardsAfter(afterId, Limit.of(51)));
+
+        assertEquals(1, statements.size());
+        assertNoSeqScan(statements.get(0), afterId, 51);
+    }
+
+
+    @Test
+    void expireOverdueCards_usesIndex() {
+        var statements = capture(() -> cardRepository.expireOverdueCards(1000));
+
+        assertEquals(1, statements.size());
+        assertNoSeqScan(statements.get(0), 1000);
+    }
+
+
+    private List<String> capture(Runnable query) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+
+            return SqlCapture.capture(query);
+        });
+    }
+
+
+    private void assertNoSeqScan(String sql, Object... params) {
+        assertEquals(params.length, sql.chars().filter(c -> c == '?').count(), sql);
+
+        var plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, params));
+
+        assertFalse(plan.contains("Seq Scan on cards"), () -> sql + "\n" + plan);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.PostgresIntegrationTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.LedgerOperation;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.projection.CardView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardSearchRepositoryTest extends PostgresIntegrationTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 10, Sort.by("id"));
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardLedgerEntryRepository ledgerEntryRepository;
+
+    private User user;
+    private Card active;
+    private Card blocked;
+
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(newUser());
+
+        active = cardRepository.save(newCard("1111", CardStatus.ACTIVE));
+        blocked = cardRepository.save(newCard("2222", CardStatus.BLOCKED));
+        cardRepository.save(newCard("3333", CardStatus.ACTIVE));
+    }
+
+
+    @Test
+    void findUserCards_withoutFilters_returnsAllUserCards() {
+        var result = cardRepository.findUserCards(PAGE, user.getId(), null, null, null);
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals(List.of("1111", "2222", "3333"), result.map(CardView::last4).getContent());
+    }
+
+
+    @Test
+    void findUserCards_byLast4_returnsMatchingCard() {
+        var result = cardRepository.findUserCards(PAGE, user.getId(), null, "2222", null);
+
+        assertEquals(List.of(blocked.getId()), result.map(CardView::id).getContent());
+    }
+
+
+    @Test
+    void findUserCards_byCardIdAndStatus_appliesBothFilters() {
+        var matching = cardRepository.findUserCards(PAGE, user.getId(), active.getId(), null, CardStatus.ACTIVE);
+        var mismatching = cardRepository.findUserCards(PAGE, user.getId(), active.getId(), null, CardStatus.BLOCKED);
+
+        assertEquals(List.of(active.getId()), matching.map(CardView::id).getContent());
+        assertEquals(0, mismatching.getTotalElements());
+    }
+
+
+    @Test
+    void findUserCards_pagedBeyondFirstPage_countsAllMatches() {
+        var result = cardRepository.findUserCards(PageRequest.of(1, 2, Sort.by("id")), user.getId(), null, null, null);
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals(List.of("3333"), result.map(CardView::last4).getContent());
+    }
+
+
+    @Test
+    void findUserCards_includesPendingLedgerEntries() {
+        ledgerEntryRepository.save(CardLedgerEntry.builder()
+                .cardId(active.getId())
+                .operation(LedgerOperation.DEPOSIT)
+                .amount(new BigDecimal("250.00"))
+                .applied(false)
+                .build());
+
+        var result = cardRepository.findUserCards(PAGE, user.getId(), active.getId(), null, null);
+
+        assertEquals(0, new BigDecimal("1250.00").compareTo(result.getContent().get(0).balance()));
+    }
+
+
+    private User newUser() {
+        return User.builder()
+                .firstName("Иван")
+                .lastName("Иванов")
+                .phoneNumber("9" + ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L))
+                .password("encoded_password")
+                .roles(new HashSet<>())
+                .cards(new ArrayList<>())
+                .build();
+    }
+
+
+    private Card newCard(String last4, CardStatus status) {
+        var prefix = ThreadLocalRandom.current().nextLong(100_000_000_000L, 1_000_000_000_000L);
+
+        return Card.builder()
+                .cardNumber(prefix + last4)
+                .placeholder(user.getFirstName() + " " + user.getLastName())
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(status)
+                .balance(new BigDecimal("1000.00"))
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.service.CardEncryptionMigrationService;
+import com.example.bankcards.util.AdvisoryLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardEncryptionMigrationJobTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private CardEncryptionMigrationService migrationService;
+
+    @Mock
+    private AdvisoryLock advisoryLock;
+
+    @InjectMocks
+    private CardEncryptionMigrationJob migrationJob;
+
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(migrationJob, "batchSize", BATCH_SIZE);
+    }
+
+
+    @Test
+    void reEncryptLegacyCards_completedPass_stopsFurtherRuns() {
+        when(advisoryLock.runExclusively(anyLong(), any(Runnable.class)))
+                .thenAnswer(i -> {
+                    i.<Runnable>getArgument(1).run();
+                    return true;
+                });
+
+        when(migrationService.migrateBatch(anyLong(), anyInt()))
+                .thenReturn(Optional.of(100L))
+                .thenReturn(Optional.empty());
+
+        migrationJob.reEncryptLegacyCards();
+        migrationJob.reEncryptLegacyCards();
+
+        verify(migrationService).migrateBatch(0L, BATCH_SIZE);
+        verify(migrationService).migrateBatch(100L, BATCH_SIZE);
+        verify(advisoryLock, times(1)).runExclusively(anyLong(), any(Runnable.class));
+    }
+
+
+    @Test
+    void reEncryptLegacyCards_lockHeldElsewhere_retriesNextRun() {
+        when(advisoryLock.runExclusively(anyLong(), any(Runnable.class)))
+                .thenReturn(false);
+
+        migrationJob.reEncryptLegacyCards();
+        migrationJob.reEncryptLegacyCards();
+
+        verify(advisoryLock, times(2)).runExclusively(anyLong(), any(Runnable.class));
+
+        verifyNoInteractions(migrationService);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.AdvisoryLock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardExpiryJobTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private AdvisoryLock advisoryLock;
+
+    @InjectMocks
+    private CardExpiryJob cardExpiryJob;
+
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardExpiryJob, "batchSize", BATCH_SIZE);
+    }
+
+
+    @Test
+    void expireOverdueCards_lockAcquired_expiresUntilBatchIsNotFull() {
+        when(advisoryLock.runExclusively(anyLong(), any(Runnable.class)))
+                .thenAnswer(i -> {
+                    i.<Runnable>getArgument(1).run();
+                    return true;
+                });
+
+        when(cardRepository.expireOverdueCards(anyInt()))
+                .thenReturn(BATCH_SIZE, BATCH_SIZE, 7);
+
+        cardExpiryJob.expireOverdueCards();
+
+        verify(cardRepository, times(3)).expireOverdueCards(BATCH_SIZE);
+    }
+
+
+    @Test
+    void expireOverdueCards_lockHeldElsewhere_skipsSweep() {
+        when(advisoryLock.runExclusively(anyLong(), any(Runnable.class)))
+                .thenReturn(false);
+
+        cardExpiryJob.expireOverdueCards();
+
+        verifyNoInteractions(cardRepository);
+    }
+}
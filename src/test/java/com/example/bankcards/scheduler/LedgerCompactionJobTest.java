@@ -0,0 +1,58 @@
+package com.example.bankcards.scheduler;
+
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.service.LedgerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerCompactionJobTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Mock
+    private CardLedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @InjectMocks
+    private LedgerCompactionJob ledgerCompactionJob;
+
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledgerCompactionJob, "batchSize", BATCH_SIZE);
+    }
+
+
+    @Test
+    void compactPendingEntries_failedCard_continuesWithRest() {
+        when(ledgerEntryRepository.findCardIdsWithPendingEntries(any(Limit.class)))
+                .thenReturn(List.of(1L, 2L, 3L));
+
+        when(ledgerService.compact(1L)).thenThrow(new PessimisticLockingFailureException("deadlock detected"));
+        when(ledgerService.compact(2L)).thenThrow(new CardNotFoundException("Карта с ID 2 не найдена"));
+        when(ledgerService.compact(3L)).thenReturn(new BigDecimal("100.00"));
+
+        ledgerCompactionJob.compactPendingEntries();
+
+        verify(ledgerEntryRepository).findCardIdsWithPendingEntries(Limit.of(BATCH_SIZE));
+        verify(ledgerService).compact(3L);
+    }
+}
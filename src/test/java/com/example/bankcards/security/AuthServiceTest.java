@@ -0,0 +1,146 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.dto.auth.AuthRequestDto;
+import com.example.bankcards.exception.TooManyRequestsException;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    private static final String PHONE_NUMBER = "9261234567";
+    private static final String RAW_PASSWORD = "password";
+    private static final String LEGACY_HASH = "$2a$10$legacy";
+    private static final String UPGRADED_HASH = "{bcrypt}$2a$12$upgraded";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @InjectMocks
+    private AuthService authService;
+
+    private User user;
+
+
+    @BeforeEach
+    void setUp() {
+        user = User.builder()
+                .id(1L)
+                .firstName("Иван")
+                .lastName("Иванов")
+                .phoneNumber(PHONE_NUMBER)
+                .password(LEGACY_HASH)
+                .roles(new HashSet<>(Set.of(Role.builder().name("ROLE_USER").build())))
+                .build();
+    }
+
+
+    @Test
+    void authenticate_outdatedHash_rehashesPassword() {
+        when(userRepository.getUserByPhoneNumber(anyString())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(RAW_PASSWORD, LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.encode(RAW_PASSWORD)).thenReturn(UPGRADED_HASH);
+        when(jwtService.generateAccessToken(any(User.class))).thenReturn("access");
+        when(jwtService.generateRefreshToken(any(User.class))).thenReturn("refresh");
+
+        var result = authService.authenticate(new AuthRequestDto(PHONE_NUMBER, RAW_PASSWORD));
+
+        assertEquals("access", result.accessToken());
+
+        verify(userRepository).replacePassword(1L, LEGACY_HASH, UPGRADED_HASH);
+    }
+
+
+    @Test
+    void authenticate_hashingPoolSaturated_stillLogsIn() {
+        when(userRepository.getUserByPhoneNumber(anyString())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(RAW_PASSWORD, LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.encode(RAW_PASSWORD)).thenThrow(new TooManyRequestsException("Сервис перегружен"));
+        when(jwtService.generateAccessToken(any(User.class))).thenReturn("access");
+        when(jwtService.generateRefreshToken(any(User.class))).thenReturn("refresh");
+
+        var result = authService.authenticate(new AuthRequestDto(PHONE_NUMBER, RAW_PASSWORD));
+
+        assertEquals("access", result.accessToken());
+
+        verify(userRepository, never()).replacePassword(any(), any(), any());
+    }
+
+
+    @Test
+    void authenticate_rehashUpdateFails_stillLogsIn() {
+        when(userRepository.getUserByPhoneNumber(anyString())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(RAW_PASSWORD, LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.encode(RAW_PASSWORD)).thenReturn(UPGRADED_HASH);
+        when(userRepository.replacePassword(1L, LEGACY_HASH, UPGRADED_HASH))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        when(jwtService.generateAccessToken(any(User.class))).thenReturn("access");
+        when(jwtService.generateRefreshToken(any(User.class))).thenReturn("refresh");
+
+        var result = authService.authenticate(new AuthRequestDto(PHONE_NUMBER, RAW_PASSWORD));
+
+        assertEquals("access", result.accessToken());
+        assertEquals("refresh", result.refreshToken());
+    }
+
+
+    @Test
+    void authenticate_currentHash_keepsPassword() {
+        when(userRepository.getUserByPhoneNumber(anyString())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(RAW_PASSWORD, LEGACY_HASH)).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(LEGACY_HASH)).thenReturn(false);
+        when(jwtService.generateAccessToken(any(User.class))).thenReturn("access");
+        when(jwtService.generateRefreshToken(any(User.class))).thenReturn("refresh");
+
+        authService.authenticate(new AuthRequestDto(PHONE_NUMBER, RAW_PASSWORD));
+
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).replacePassword(any(), any(), any());
+    }
+
+
+    @Test
+    void authenticate_wrongPassword_doesNotRehash() {
+        when(userRepository.getUserByPhoneNumber(anyString())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(RAW_PASSWORD, LEGACY_HASH)).thenReturn(false);
+
+        var ex = assertThrows(IllegalArgumentException.class,
+                () -> authService.authenticate(new AuthRequestDto(PHONE_NUMBER, RAW_PASSWORD)));
+
+        assertEquals("Неправильно введен номер телефона или пароль", ex.getMessage());
+
+        verify(passwordEncoder, never()).upgradeEncoding(any());
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).replacePassword(any(), any(), any());
+    }
+}
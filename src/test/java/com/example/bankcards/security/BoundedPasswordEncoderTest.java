@@ -0,0 +1,108 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BoundedPasswordEncoderTest {
+
+    private static final String RAW_PASSWORD = "password";
+    private static final String ENCODED_PASSWORD = "encoded_password";
+
+    @Mock
+    private PasswordEncoder delegate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, meterRegistry);
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+
+    @Test
+    void encodeAndMatches_delegateAndRecordLatency() {
+        when(delegate.encode(any())).thenReturn(ENCODED_PASSWORD);
+        when(delegate.matches(any(), anyString())).thenReturn(true);
+
+        assertEquals(ENCODED_PASSWORD, passwordEncoder.encode(RAW_PASSWORD));
+        assertTrue(passwordEncoder.matches(RAW_PASSWORD, ENCODED_PASSWORD));
+
+        assertEquals(1, meterRegistry.timer("password.hash", "operation", "encode").count());
+        assertEquals(1, meterRegistry.timer("password.hash", "operation", "matches").count());
+        assertEquals(2, meterRegistry.timer("password.hash.queue.wait").count());
+    }
+
+
+    @Test
+    void matches_delegateThrows_propagatesException() {
+        when(delegate.matches(any(), anyString())).thenThrow(new IllegalArgumentException("Некорректный хеш"));
+
+        var ex = assertThrows(IllegalArgumentException.class,
+                () -> passwordEncoder.matches(RAW_PASSWORD, ENCODED_PASSWORD));
+
+        assertEquals("Некорректный хеш", ex.getMessage());
+    }
+
+
+    @Test
+    void encode_poolSaturated_throwsTooManyRequests() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        when(delegate.encode(any())).thenAnswer(i -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ENCODED_PASSWORD;
+        });
+
+        var callers = Executors.newFixedThreadPool(2);
+        var running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode(RAW_PASSWORD), callers);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        var queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode(RAW_PASSWORD), callers);
+        while (meterRegistry.get("password.hash.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        var ex = assertThrows(TooManyRequestsException.class, () -> passwordEncoder.encode(RAW_PASSWORD));
+
+        release.countDown();
+
+        assertEquals("Сервис аутентификации перегружен. Повторите попытку позже", ex.getMessage());
+        assertEquals(ENCODED_PASSWORD, running.get(5, TimeUnit.SECONDS));
+        assertEquals(ENCODED_PASSWORD, queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.counter("password.hash.rejected").count());
+
+        callers.shutdown();
+    }
+}
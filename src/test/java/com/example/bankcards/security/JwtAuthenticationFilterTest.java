@@ -0,0 +1,121 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    private static final String TOKEN = "access.token.value";
+    private static final String PHONE_NUMBER = "9265847312";
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokens;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private RevokedUserRegistry revokedUsers;
+
+    @InjectMocks
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    private CustomUserDetails userDetails;
+    private Claims claims;
+
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "stateless", true);
+
+        userDetails = new CustomUserDetails(
+                1L, PHONE_NUMBER, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        claims = Jwts.claims().subject(PHONE_NUMBER).build();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+
+    @Test
+    void stateless_authenticatesFromClaims() throws Exception {
+        when(verifiedTokens.get(anyString())).thenReturn(claims);
+        when(jwtService.extractUserDetails(any(Claims.class))).thenReturn(Optional.of(userDetails));
+        when(jwtService.isTokenValid(any(Claims.class), any())).thenReturn(true);
+        when(revokedUsers.isRevoked(anyLong())).thenReturn(false);
+
+        jwtAuthenticationFilter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+
+        verifyNoInteractions(userDetailsService);
+    }
+
+
+    @Test
+    void stateless_revokedUser_notAuthenticated() throws Exception {
+        when(verifiedTokens.get(anyString())).thenReturn(claims);
+        when(jwtService.extractUserDetails(any(Claims.class))).thenReturn(Optional.of(userDetails));
+        when(jwtService.isTokenValid(any(Claims.class), any())).thenReturn(true);
+        when(revokedUsers.isRevoked(anyLong())).thenReturn(true);
+
+        jwtAuthenticationFilter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+
+    @Test
+    void stateless_tokenWithoutClaims_fallsBackToUserDetailsService() throws Exception {
+        when(verifiedTokens.get(anyString())).thenReturn(claims);
+        when(jwtService.extractUserDetails(any(Claims.class))).thenReturn(Optional.empty());
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(userDetails);
+        when(jwtService.isTokenValid(any(Claims.class), any())).thenReturn(true);
+        when(revokedUsers.isRevoked(anyLong())).thenReturn(false);
+
+        jwtAuthenticationFilter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertEquals(userDetails, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+
+    private MockHttpServletRequest request() {
+        var request = new MockHttpServletRequest("GET", "/api/v1/users/cards");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+
+        return request;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTest {
+
+    private static final String ACCESS_SECRET = "aXQtYWNjZXNzLXNlY3JldC1mb3ItYmFuay1jYXJkcy1pbnRlZ3JhdGlvbi10ZXN0cw==";
+    private static final String REFRESH_SECRET = "aXQtcmVmcmVzaC1zZWNyZXQtZm9yLWJhbmstY2FyZHMtaW50ZWdyYXRpb24tdGVzdHM=";
+    private static final String ROTATED_SECRET = "cm90YXRlZC1hY2Nlc3Mtc2VjcmV0LWZvci1iYW5rLWNhcmRzLXVuaXQtdGVzdHM=";
+
+    private JwtService jwtService;
+    private User user;
+
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(ACCESS_SECRET, List.of(), REFRESH_SECRET, List.of(), 900_000L, 86_400_000L);
+
+        user = User.builder()
+                .id(7L)
+                .phoneNumber("9265847312")
+                .roles(Set.of(Role.builder().name("ROLE_USER").build()))
+                .build();
+    }
+
+
+    @Test
+    void extractUserDetails_fromAccessToken() {
+        var token = jwtService.generateAccessToken(user);
+
+        var userDetails = jwtService.extractUserDetails(jwtService.parseAccessToken(token)).orElseThrow();
+
+        assertEquals(7L, userDetails.userId());
+        assertEquals("9265847312", userDetails.getUsername());
+        assertEquals(Set.of(new SimpleGrantedAuthority("ROLE_USER")), Set.copyOf(userDetails.getAuthorities()));
+    }
+
+
+    @Test
+    void extractUserDetails_tokenWithoutUid_returnsEmpty() {
+        var token = Jwts.builder()
+                .subject("9265847312")
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(ACCESS_SECRET)))
+                .compact();
+
+        assertTrue(jwtService.extractUserDetails(jwtService.parseAccessToken(token)).isEmpty());
+    }
+
+
+    @Test
+    void parseRefreshToken_validForOwner() {
+        var claims = jwtService.parseRefreshToken(jwtService.generateRefreshToken(user));
+
+        assertTrue(jwtService.isTokenValid(claims, new CustomUserDetails(7L, "9265847312", null, Set.of())));
+        assertFalse(jwtService.isTokenValid(claims, new CustomUserDetails(8L, "9031112233", null, Set.of())));
+    }
+
+
+    @Test
+    void parseAccessToken_refreshToken_throwsException() {
+        var refreshToken = jwtService.generateRefreshToken(user);
+
+        assertThrows(JwtException.class, () -> jwtService.parseAccessToken(refreshToken));
+    }
+
+
+    @Test
+    void parseAccessToken_signedWithPreviousKey_accepted() {
+        var token = jwtService.generateAccessToken(user);
+        var rotated = new JwtService(ROTATED_SECRET, List.of(ACCESS_SECRET), REFRESH_SECRET, List.of(), 900_000L, 86_400_000L);
+
+        assertEquals("9265847312", rotated.parseAccessToken(token).getSubject());
+        assertThrows(JwtException.class, () -> jwtService.parseAccessToken(rotated.generateAccessToken(user)));
+    }
+
+
+    @Test
+    void parseAccessToken_retiredKey_throwsException() {
+        var token = jwtService.generateAccessToken(user);
+        var rotated = new JwtService(ROTATED_SECRET, List.of(), REFRESH_SECRET, List.of(), 900_000L, 86_400_000L);
+
+        assertThrows(JwtException.class, () -> rotated.parseAccessToken(token));
+    }
+}
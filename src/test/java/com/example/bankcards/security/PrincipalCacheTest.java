@@ -0,0 +1,72 @@
+package com.example.bankcards.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PrincipalCacheTest {
+
+    private static final String PHONE_NUMBER = "9265847312";
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+    private AtomicInteger loads;
+
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(meterRegistry, 100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+    }
+
+
+    @Test
+    void get_secondCall_servedFromCache() {
+        var first = principalCache.get(PHONE_NUMBER, this::load);
+        var second = principalCache.get(PHONE_NUMBER, this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "principals").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+
+    @Test
+    void evictByUserId_forcesReload() {
+        principalCache.get(PHONE_NUMBER, this::load);
+
+        principalCache.evictByUserId(1L);
+        principalCache.get(PHONE_NUMBER, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+
+    @Test
+    void evictByUserId_otherUser_keepsEntry() {
+        principalCache.get(PHONE_NUMBER, this::load);
+
+        principalCache.evictByUserId(2L);
+        principalCache.get(PHONE_NUMBER, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+
+    private CustomUserDetails load(String phoneNumber) {
+        loads.incrementAndGet();
+
+        return new CustomUserDetails(
+                1L, phoneNumber, "encrypted_password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+}
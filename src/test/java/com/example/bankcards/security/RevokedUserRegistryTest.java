@@ -0,0 +1,64 @@
+package com.example.bankcards.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RevokedUserRegistryTest {
+
+    private RevokedUserRegistry revokedUserRegistry;
+
+
+    @BeforeEach
+    void setUp() {
+        revokedUserRegistry = new RevokedUserRegistry(60_000);
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+
+    @Test
+    void revoke_withoutTransaction_revokesImmediately() {
+        revokedUserRegistry.revoke(1L);
+
+        assertTrue(revokedUserRegistry.isRevoked(1L));
+        assertFalse(revokedUserRegistry.isRevoked(2L));
+    }
+
+
+    @Test
+    void revoke_insideTransaction_revokesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        revokedUserRegistry.revoke(1L);
+
+        assertFalse(revokedUserRegistry.isRevoked(1L));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertTrue(revokedUserRegistry.isRevoked(1L));
+    }
+
+
+    @Test
+    void revoke_rolledBackTransaction_keepsUserActive() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        revokedUserRegistry.revoke(1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertFalse(revokedUserRegistry.isRevoked(1L));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    private static final String TOKEN = "access.token.value";
+
+    @Mock
+    private JwtService jwtService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+
+    @Test
+    void get_repeatedToken_verifiedOnce() {
+        var verifiedTokens = new VerifiedTokenCache(jwtService, meterRegistry, true, 100);
+        var claims = claims(new Date(System.currentTimeMillis() + 60_000));
+
+        when(jwtService.parseAccessToken(TOKEN)).thenReturn(claims);
+
+        assertSame(claims, verifiedTokens.get(TOKEN));
+        assertSame(claims, verifiedTokens.get(TOKEN));
+
+        verify(jwtService).parseAccessToken(TOKEN);
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "verified_tokens")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+
+    @Test
+    void get_expiredClaims_notCached() {
+        var verifiedTokens = new VerifiedTokenCache(jwtService, meterRegistry, true, 100);
+
+        when(jwtService.parseAccessToken(TOKEN)).thenReturn(claims(new Date(System.currentTimeMillis() - 1_000)));
+
+        verifiedTokens.get(TOKEN);
+        verifiedTokens.get(TOKEN);
+
+        verify(jwtService, times(2)).parseAccessToken(TOKEN);
+    }
+
+
+    @Test
+    void get_disabled_verifiesEveryTime() {
+        var verifiedTokens = new VerifiedTokenCache(jwtService, meterRegistry, false, 100);
+
+        when(jwtService.parseAccessToken(TOKEN)).thenReturn(claims(new Date(System.currentTimeMillis() + 60_000)));
+
+        verifiedTokens.get(TOKEN);
+        verifiedTokens.get(TOKEN);
+
+        verify(jwtService, times(2)).parseAccessToken(TOKEN);
+    }
+
+
+    private Claims claims(Date expiration) {
+        return Jwts.claims()
+                .subject("9265847312")
+                .expiration(expiration)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.PostgresIntegrationTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdminCardServiceQueryCountTest extends PostgresIntegrationTest {
+
+    private static final int USERS = 10;
+    private static final int CARDS_PER_USER = 3;
+
+    @Autowired
+    private AdminCardService adminCardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < USERS; i++) {
+            var user = userRepository.save(newUser());
+
+            for (int j = 0; j < CARDS_PER_USER; j++) {
+                cardRepository.save(newCard(user));
+            }
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+
+    @Test
+    void getAllCards_statementCountIndependentOfPageSize() {
+        var smallPage = statementsFor(5);
+        var largePage = statementsFor(USERS * CARDS_PER_USER - 5);
+
+        assertEquals(2, smallPage);
+        assertEquals(smallPage, largePage);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    private long statementsFor(int pageSize) {
+        statistics.clear();
+
+        adminCardService.getAllCards(PageRequest.of(0, pageSize), true, false);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+
+    private User newUser() {
+        return User.builder()
+                .firstName("Иван")
+                .lastName("Иванов")
+                .phoneNumber("9" + ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L))
+                .password("encoded_password")
+                .roles(new HashSet<>())
+                .cards(new ArrayList<>())
+                .build();
+    }
+
+
+    private Card newCard(User user) {
+        return Card.builder()
+                .cardNumber(String.valueOf(ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L, 10_000_000_000_000_000L)))
+                .placeholder(user.getFirstName() + " " + user.getLastName())
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .balance(BigDecimal.ZERO)
+                .user(user)
+                .build();
+    }
+}
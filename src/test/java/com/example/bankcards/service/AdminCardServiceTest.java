@@ -12,18 +12,23 @@ import com.example.bankcards.exception.RejectOperationException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardView;
 import com.example.bankcards.util.CardNumberGenerator;
 import com.example.bankcards.util.Encryptor;
+import com.example.bankcards.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -35,13 +40,17 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -53,6 +62,7 @@ class AdminCardServiceTest {
     private static final long WRONG_USER_ID = 0L;
     private static final long CARD_ID = 1L;
     private static final long WRONG_CARD_ID = 0L;
+    private static final long CARD_NUMBER_SEQUENCE = 42L;
 
     @Mock
     private CardRepository cardRepository;
@@ -73,7 +83,6 @@ class AdminCardServiceTest {
     private Card card;
     private CardResponseDto expectedCardResponse;
     private final String cardNumber = "1111222233334444";
-    private final String encryptedNumber = "encoded_card_number";
 
 
     @BeforeEach
@@ -114,9 +123,8 @@ class AdminCardServiceTest {
     @Test
     void createNewCard_success() {
         when(userRepository.findById(anyLong())).thenReturn(Optional.of(user));
-        when(cardNumberGenerator.generate()).thenReturn(cardNumber);
-        when(encryptor.encrypt(anyString())).thenReturn(encryptedNumber);
-        when(cardRepository.existsByEncryptedCardNumber(anyString())).thenReturn(false);
+        when(cardRepository.nextCardNumberSequence()).thenReturn(CARD_NUMBER_SEQUENCE);
+        when(cardNumberGenerator.generate(anyLong())).thenReturn(cardNumber);
 
         when(cardRepository.saveAndFlush(any(Card.class)))
                 .thenAnswer(i -> {
@@ -130,9 +138,8 @@ class AdminCardServiceTest {
         assertEquals(expectedCardResponse, result);
 
         verify(userRepository).findById(USER_ID);
-        verify(cardNumberGenerator).generate();
-        verify(encryptor).encrypt(cardNumber);
-        verify(cardRepository).existsByEncryptedCardNumber(encryptedNumber);
+        verify(cardRepository).nextCardNumberSequence();
+        verify(cardNumberGenerator).generate(CARD_NUMBER_SEQUENCE);
 
         verify(cardRepository).saveAndFlush(argThat(i ->
                 i.getCardNumber().equals(cardNumber) &&
@@ -260,7 +267,7 @@ class AdminCardServiceTest {
     @Test
     void getAllCards_success() {
         Pageable pageable = PageRequest.of(0, 3);
-        Page<Card> page = new PageImpl<>(List.of(card), pageable, 1);
+        Page<CardView> page = new PageImpl<>(List.of(cardView()), pageable, 1);
 
         var expectedPageResponse = PageCardResponseDto.builder()
                 .content(List.of(expectedCardResponse))
@@ -269,22 +276,107 @@ class AdminCardServiceTest {
                 .totalPages(1)
                 .totalElements(1L)
                 .last(true)
+                .approximateTotal(false)
                 .build();
 
-        when(cardRepository.findAll(any(Pageable.class))).thenReturn(page);
+        when(cardRepository.findAllCards(any(Pageable.class))).thenReturn(page);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
 
-        var result = adminCardService.getAllCards(pageable);
+        var result = adminCardService.getAllCards(pageable, true, false);
 
         assertEquals(expectedPageResponse, result);
 
-        verify(cardRepository).findAll(pageable);
+        verify(cardRepository).findAllCards(pageable);
+    }
+
+
+    @Test
+    void getAllCards_withoutTotal_noCountQuery() {
+        var pageable = PageRequest.of(0, 1);
+        Slice<CardView> slice = new SliceImpl<>(List.of(cardView()), pageable, true);
+
+        when(cardRepository.findCardSlice(any(Pageable.class))).thenReturn(slice);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
+
+        var result = adminCardService.getAllCards(pageable, false, false);
+
+        assertEquals(List.of(expectedCardResponse), result.content());
+        assertNull(result.totalElements());
+        assertNull(result.totalPages());
+        assertFalse(result.last());
+
+        verify(cardRepository).findCardSlice(pageable);
+
+        verifyNoMoreInteractions(cardRepository);
+    }
+
+
+    @Test
+    void getAllCards_approximateTotal_usesEstimate() {
+        var pageable = PageRequest.of(0, 1);
+        Slice<CardView> slice = new SliceImpl<>(List.of(cardView()), pageable, true);
+
+        when(cardRepository.findCardSlice(any(Pageable.class))).thenReturn(slice);
+        when(cardRepository.estimateCardCount()).thenReturn(5000L);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
+
+        var result = adminCardService.getAllCards(pageable, true, true);
+
+        assertEquals(5000L, result.totalElements());
+        assertEquals(5000, result.totalPages());
+        assertTrue(result.approximateTotal());
+        assertFalse(result.last());
+
+        verify(cardRepository, never()).findAllCards(any(Pageable.class));
+    }
+
+
+    @Test
+    void getAllCardsAfter_hasNextPage() {
+        var nextView = new CardView(CARD_ID + 1, "5566", "encrypted_placeholder", card.getExpirationDate(),
+                card.getStatus(), card.getBalance(), USER_ID);
+
+        when(cardRepository.findCardsAfter(anyLong(), any(Limit.class))).thenReturn(List.of(cardView(), nextView));
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
+
+        var result = adminCardService.getAllCardsAfter(null, 1);
+
+        assertEquals(List.of(expectedCardResponse), result.content());
+        assertEquals(PageCursor.encode(CARD_ID), result.next());
+
+        verify(cardRepository).findCardsAfter(0L, Limit.of(2));
+    }
+
+
+    @Test
+    void getAllCardsAfter_lastPage() {
+        when(cardRepository.findCardsAfter(anyLong(), any(Limit.class))).thenReturn(List.of(cardView()));
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
+
+        var result = adminCardService.getAllCardsAfter(PageCursor.encode(CARD_ID - 1), 10);
+
+        assertEquals(List.of(expectedCardResponse), result.content());
+        assertNull(result.next());
+
+        verify(cardRepository).findCardsAfter(CARD_ID - 1, Limit.of(11));
+    }
+
+
+    @Test
+    void getAllCardsAfter_invalidCursor_throwsException() {
+        var ex = assertThrows(IllegalArgumentException.class,
+                () -> adminCardService.getAllCardsAfter("not-a-cursor", 10));
+
+        assertEquals("Некорректный курсор страницы", ex.getMessage());
+
+        verifyNoMoreInteractions(cardRepository);
     }
 
 
     @Test
     void getUserCards_success() {
         var pageable = PageRequest.of(0, 3);
-        var page = new PageImpl<>(List.of(card), pageable, 1);
+        var page = new PageImpl<>(List.of(cardView()), pageable, 1);
 
         var expectedPageResponse = PageCardResponseDto.builder()
                 .content(List.of(expectedCardResponse))
@@ -293,13 +385,15 @@ class AdminCardServiceTest {
                 .totalPages(1)
                 .totalElements(1L)
                 .last(true)
+                .approximateTotal(false)
                 .build();
 
         when(userRepository.existsById(anyLong())).thenReturn(true);
         when(cardRepository.findCardsByUserId(anyLong(), any(Pageable.class)))
                 .thenReturn(page);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
 
-        var result = adminCardService.getUserCards(USER_ID, pageable);
+        var result = adminCardService.getUserCards(USER_ID, pageable, true);
 
         assertEquals(expectedPageResponse, result);
 
@@ -313,10 +407,16 @@ class AdminCardServiceTest {
         when(userRepository.existsById(anyLong())).thenReturn(false);
 
         var ex = assertThrows(UserNotFoundException.class,
-                () -> adminCardService.getUserCards(WRONG_USER_ID, Pageable.unpaged()));
+                () -> adminCardService.getUserCards(WRONG_USER_ID, Pageable.unpaged(), true));
 
         assertEquals("Пользователь не найден", ex.getMessage());
 
         verifyNoMoreInteractions(cardRepository);
     }
-}
\ No newline at end of file
+
+
+    private CardView cardView() {
+        return new CardView(CARD_ID, card.getLast4(), "encrypted_placeholder", card.getExpirationDate(),
+                card.getStatus(), card.getBalance(), USER_ID);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.PostgresIntegrationTest;
+import com.example.bankcards.dto.card.FundsDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardBalanceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private UserCardService userCardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private Card card;
+
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.getUserByPhoneNumber("8005553535").orElseThrow();
+        card = cardRepository.save(Card.builder()
+                .cardNumber(String.valueOf(ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L, 10_000_000_000_000_000L)))
+                .placeholder("Oleg Tinkoff")
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .balance(new BigDecimal("1000.00"))
+                .user(user)
+                .build());
+    }
+
+
+    @Test
+    void withdraw_pendingCredit_reportsAvailableBalance() {
+        userCardService.deposit(user.getId(), card.getId(), new FundsDto(new BigDecimal("500.00")));
+
+        var result = userCardService.withdraw(user.getId(), card.getId(), new FundsDto(new BigDecimal("200.00")));
+
+        assertTrue(result.contains("Баланс карты составляет 1300.00 рублей"), result);
+        assertEquals("Баланс карты: 1300.00 рублей", userCardService.showBalance(card.getId(), user.getId()));
+    }
+}
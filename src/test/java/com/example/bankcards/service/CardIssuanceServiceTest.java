@@ -0,0 +1,165 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.card.CardIssuanceBatchDto;
+import com.example.bankcards.dto.card.CardIssuanceChunkDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardRecipient;
+import com.example.bankcards.util.CardNumberGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CardIssuanceServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+    private static final String CARD_NUMBER = "2200701234567895";
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private CardNumberGenerator cardNumberGenerator;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardIssuanceService cardIssuanceService;
+
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        cardIssuanceService = new CardIssuanceService(
+                cardRepository, userRepository, cardNumberGenerator, transactionManager, CHUNK_SIZE);
+    }
+
+
+    @Test
+    void issueCards_issuesInChunksAndReportsMissingUsers() {
+        when(userRepository.findCardRecipients(anyCollection()))
+                .thenReturn(List.of(recipient(1L), recipient(2L)))
+                .thenReturn(List.of());
+        when(userRepository.getReferenceById(anyLong()))
+                .thenAnswer(i -> User.builder().id(i.getArgument(0)).build());
+        when(cardRepository.nextCardNumberSequences(anyInt())).thenReturn(List.of(10L, 11L));
+        when(cardNumberGenerator.generate(anyLong())).thenReturn(CARD_NUMBER);
+
+        var result = cardIssuanceService.issueCards(new CardIssuanceBatchDto(List.of(1L, 2L, 3L)));
+
+        assertEquals(2, result.issued());
+        assertEquals(1, result.failed());
+        assertEquals(List.of(
+                new CardIssuanceChunkDto(0, 2, 0, List.of()),
+                new CardIssuanceChunkDto(1, 0, 1, List.of(3L))
+        ), result.chunks());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Card>> cards = ArgumentCaptor.forClass(List.class);
+        verify(cardRepository).saveAll(cards.capture());
+        verify(cardRepository).nextCardNumberSequences(2);
+        verify(cardNumberGenerator).generate(10L);
+        verify(cardNumberGenerator).generate(11L);
+
+        assertEquals(2, cards.getValue().size());
+        assertEquals("7895", cards.getValue().get(0).getLast4());
+        assertEquals("Иван Иванов", cards.getValue().get(0).getPlaceholder());
+        assertEquals(2L, cards.getValue().get(1).getUser().getId());
+    }
+
+
+    @Test
+    void issueCards_chunkFails_marksWholeChunkFailedAndContinues() {
+        when(userRepository.findCardRecipients(anyCollection()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenReturn(List.of(recipient(3L)));
+        when(userRepository.getReferenceById(anyLong()))
+                .thenAnswer(i -> User.builder().id(i.getArgument(0)).build());
+        when(cardRepository.nextCardNumberSequences(anyInt())).thenReturn(List.of(12L));
+        when(cardNumberGenerator.generate(anyLong())).thenReturn(CARD_NUMBER);
+
+        var result = cardIssuanceService.issueCards(new CardIssuanceBatchDto(List.of(1L, 2L, 3L)));
+
+        assertEquals(1, result.issued());
+        assertEquals(2, result.failed());
+        assertEquals(new CardIssuanceChunkDto(0, 0, 2, List.of(1L, 2L)), result.chunks().get(0));
+
+        verify(transactionManager).rollback(any());
+    }
+
+
+    @Test
+    void issueCards_numberRangeExhausted_rejectsChunk() {
+        when(userRepository.findCardRecipients(anyCollection()))
+                .thenReturn(List.of(recipient(1L), recipient(2L)))
+                .thenReturn(List.of(recipient(3L)));
+        when(userRepository.getReferenceById(anyLong()))
+                .thenAnswer(i -> User.builder().id(i.getArgument(0)).build());
+        when(cardRepository.nextCardNumberSequences(anyInt()))
+                .thenReturn(List.of(10L, 11L))
+                .thenReturn(List.of(12L));
+        when(cardNumberGenerator.generate(anyLong()))
+                .thenReturn(CARD_NUMBER)
+                .thenReturn(CARD_NUMBER)
+                .thenThrow(new IllegalStateException("Исчерпан диапазон номеров карт для BIN 220070"));
+
+        var result = cardIssuanceService.issueCards(new CardIssuanceBatchDto(List.of(1L, 2L, 3L)));
+
+        assertEquals(2, result.issued());
+        assertEquals(1, result.failed());
+        assertEquals(new CardIssuanceChunkDto(1, 0, 1, List.of(3L)), result.chunks().get(1));
+
+        verify(cardRepository).saveAll(anyList());
+        verify(transactionManager).rollback(any());
+    }
+
+
+    @Test
+    void issueCards_duplicateUserIds_issuesOneCardPerUser() {
+        when(userRepository.findCardRecipients(anyCollection()))
+                .thenReturn(List.of(recipient(1L), recipient(2L)));
+        when(userRepository.getReferenceById(anyLong()))
+                .thenAnswer(i -> User.builder().id(i.getArgument(0)).build());
+        when(cardRepository.nextCardNumberSequences(anyInt())).thenReturn(List.of(10L, 11L));
+        when(cardNumberGenerator.generate(anyLong())).thenReturn(CARD_NUMBER);
+
+        var result = cardIssuanceService.issueCards(new CardIssuanceBatchDto(List.of(1L, 2L, 1L, 2L)));
+
+        assertEquals(2, result.issued());
+        assertEquals(0, result.failed());
+        assertEquals(List.of(new CardIssuanceChunkDto(0, 2, 0, List.of())), result.chunks());
+
+        verify(userRepository).findCardRecipients(List.of(1L, 2L));
+        verify(cardRepository).nextCardNumberSequences(2);
+    }
+
+
+    private CardRecipient recipient(Long id) {
+        return new CardRecipient(id, "Иван", "Иванов");
+    }
+}
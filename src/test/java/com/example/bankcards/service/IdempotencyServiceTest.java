@@ -0,0 +1,154 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.idempotency.IdempotentResponse;
+import com.example.bankcards.entity.IdempotencyRecord;
+import com.example.bankcards.exception.ConcurrentOperationException;
+import com.example.bankcards.exception.IdempotencyKeyMismatchException;
+import com.example.bankcards.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final String KEY = "3f1c2a4e-7d1b-4c55-9a0e-2b8f6a1d9c77";
+    private static final String HASH = "a1b2c3";
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdempotencyService idempotencyService;
+
+    private IdempotentResponse response;
+
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(
+                recordRepository, meterRegistry, Duration.ofHours(24), Duration.ofMinutes(1), 100);
+
+        response = IdempotentResponse.builder()
+                .statusCode(200)
+                .contentType("text/plain;charset=UTF-8")
+                .body("С карты снято 5000.00 рублей.")
+                .build();
+    }
+
+
+    @Test
+    void begin_newKey_reserves() {
+        when(recordRepository.reserve(anyLong(), anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        var result = idempotencyService.begin(USER_ID, KEY, HASH);
+
+        assertTrue(result.isEmpty());
+        assertEquals(1.0, outcomeCount("miss"));
+    }
+
+
+    @Test
+    void begin_completedInStore_replaysAndCaches() {
+        when(recordRepository.reserve(anyLong(), anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        when(recordRepository.findByUserIdAndIdempotencyKey(anyLong(), anyString()))
+                .thenReturn(Optional.of(record(HASH, 200)));
+
+        var first = idempotencyService.begin(USER_ID, KEY, HASH);
+        var second = idempotencyService.begin(USER_ID, KEY, HASH);
+
+        assertEquals(Optional.of(response), first);
+        assertEquals(Optional.of(response), second);
+        assertEquals(1.0, outcomeCount("store_hit"));
+        assertEquals(1.0, outcomeCount("cache_hit"));
+
+        verify(recordRepository).findByUserIdAndIdempotencyKey(USER_ID, KEY);
+    }
+
+
+    @Test
+    void begin_afterComplete_servedFromCache() {
+        idempotencyService.complete(USER_ID, KEY, HASH, response);
+
+        var result = idempotencyService.begin(USER_ID, KEY, HASH);
+
+        assertEquals(Optional.of(response), result);
+
+        verify(recordRepository).complete(USER_ID, KEY, 200, response.contentType(), response.body());
+
+        verifyNoMoreInteractions(recordRepository);
+    }
+
+
+    @Test
+    void begin_inProgress_throwsException() {
+        when(recordRepository.reserve(anyLong(), anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        when(recordRepository.findByUserIdAndIdempotencyKey(anyLong(), anyString()))
+                .thenReturn(Optional.of(record(HASH, null)));
+
+        var ex = assertThrows(ConcurrentOperationException.class,
+                () -> idempotencyService.begin(USER_ID, KEY, HASH));
+
+        assertEquals("Запрос с этим ключом идемпотентности еще обрабатывается", ex.getMessage());
+        assertEquals(1.0, outcomeCount("in_progress"));
+    }
+
+
+    @Test
+    void begin_differentRequest_throwsException() {
+        when(recordRepository.reserve(anyLong(), anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        when(recordRepository.findByUserIdAndIdempotencyKey(anyLong(), anyString()))
+                .thenReturn(Optional.of(record("other", 200)));
+
+        var ex = assertThrows(IdempotencyKeyMismatchException.class,
+                () -> idempotencyService.begin(USER_ID, KEY, HASH));
+
+        assertEquals("Ключ идемпотентности уже использован для другого запроса", ex.getMessage());
+        assertEquals(1.0, outcomeCount("mismatch"));
+    }
+
+
+    private IdempotencyRecord record(String requestHash, Integer statusCode) {
+        return IdempotencyRecord.builder()
+                .id(1L)
+                .userId(USER_ID)
+                .idempotencyKey(KEY)
+                .requestHash(requestHash)
+                .statusCode(statusCode)
+                .contentType(statusCode == null ? null : response.contentType())
+                .responseBody(statusCode == null ? null : response.body())
+                .build();
+    }
+
+
+    private double outcomeCount(String outcome) {
+        return meterRegistry.counter("idempotency.requests", "outcome", outcome).count();
+    }
+}
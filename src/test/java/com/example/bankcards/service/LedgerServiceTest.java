@@ -0,0 +1,243 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardLedgerEntry;
+import com.example.bankcards.entity.LedgerOperation;
+import com.example.bankcards.exception.CardNotFoundException;
+import com.example.bankcards.repository.CardLedgerEntryRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.PendingTotal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    private static final long CARD_ID = 1L;
+    private static final long USER_ID = 1L;
+
+    @Mock
+    private CardLedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+
+    @Test
+    void credit_success() {
+        when(ledgerEntryRepository.appendCredit(anyLong(), anyLong(), any(BigDecimal.class), anyString()))
+                .thenReturn(1);
+
+        var result = ledgerService.credit(CARD_ID, USER_ID, new BigDecimal("5000"), LedgerOperation.DEPOSIT);
+
+        assertTrue(result);
+
+        verify(ledgerEntryRepository).appendCredit(CARD_ID, USER_ID, new BigDecimal("5000.00"), "DEPOSIT");
+
+        verifyNoMoreInteractions(ledgerEntryRepository, cardRepository);
+    }
+
+
+    @Test
+    void credit_cardUnavailable_returnsFalse() {
+        when(ledgerEntryRepository.appendCredit(anyLong(), anyLong(), any(BigDecimal.class), anyString()))
+                .thenReturn(0);
+
+        var result = ledgerService.credit(CARD_ID, USER_ID, new BigDecimal("5000.00"), LedgerOperation.TRANSFER_IN);
+
+        assertFalse(result);
+
+        verify(ledgerEntryRepository).appendCredit(CARD_ID, USER_ID, new BigDecimal("5000.00"), "TRANSFER_IN");
+    }
+
+
+    @Test
+    void debit_success() {
+        when(cardRepository.debit(anyLong(), anyLong(), any(BigDecimal.class), anyString()))
+                .thenReturn(Optional.of(new BigDecimal("30000.00")));
+
+        var result = ledgerService.debit(CARD_ID, USER_ID, new BigDecimal("5000"), LedgerOperation.WITHDRAWAL);
+
+        assertEquals(Optional.of(new BigDecimal("30000.00")), result);
+
+        verify(cardRepository).debit(CARD_ID, USER_ID, new BigDecimal("5000.00"), "WITHDRAWAL");
+
+        verifyNoMoreInteractions(ledgerEntryRepository, cardRepository);
+    }
+
+
+    @Test
+    void debit_afterCompaction_success() {
+        when(cardRepository.debit(anyLong(), anyLong(), any(BigDecimal.class), anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new BigDecimal("1000.00")));
+
+        when(cardRepository.lockCardsForLedger(anyCollection()))
+                .thenReturn(List.of(CARD_ID));
+
+        when(ledgerEntryRepository.compact(anyLong()))
+                .thenReturn(Optional.of(new BigDecimal("6000.00")));
+
+        var result = ledgerService.debit(CARD_ID, USER_ID, new BigDecimal("5000.00"), LedgerOperation.TRANSFER_OUT);
+
+        assertEquals(Optional.of(new BigDecimal("1000.00")), result);
+
+        verify(cardRepository, times(2)).debit(CARD_ID, USER_ID, new BigDecimal("5000.00"), "TRANSFER_OUT");
+        verify(ledgerEntryRepository).compact(CARD_ID);
+    }
+
+
+    @Test
+    void debit_insufficientFunds_returnsEmpty() {
+        when(cardRepository.debit(anyLong(), anyLong(), any(BigDecimal.class), anyString()))
+                .thenReturn(Optional.empty());
+
+        when(cardRepository.lockCardsForLedger(anyCollection()))
+                .thenReturn(List.of(CARD_ID));
+
+        when(ledgerEntryRepository.compact(anyLong()))
+                .thenReturn(Optional.of(new BigDecimal("1000.00")));
+
+        var result = ledgerService.debit(CARD_ID, USER_ID, new BigDecimal("5000.00"), LedgerOperation.WITHDRAWAL);
+
+        assertTrue(result.isEmpty());
+
+        verify(cardRepository, times(2)).debit(CARD_ID, USER_ID, new BigDecimal("5000.00"), "WITHDRAWAL");
+        verify(ledgerEntryRepository).compact(CARD_ID);
+    }
+
+
+    @Test
+    void compact_cardNotFound_throwsException() {
+        when(cardRepository.lockCardsForLedger(anyCollection())).thenReturn(List.of());
+
+        var ex = assertThrows(CardNotFoundException.class,
+                () -> ledgerService.compact(CARD_ID));
+
+        assertEquals("Карта с ID 1 не найдена", ex.getMessage());
+
+        verify(cardRepository).lockCardsForLedger(List.of(CARD_ID));
+
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+
+    @Test
+    void compact_locksCardBeforeLedgerEntries() {
+        when(cardRepository.lockCardsForLedger(anyCollection())).thenReturn(List.of(CARD_ID));
+        when(ledgerEntryRepository.compact(anyLong())).thenReturn(Optional.of(new BigDecimal("6000.00")));
+
+        var result = ledgerService.compact(CARD_ID);
+
+        assertEquals(new BigDecimal("6000.00"), result);
+
+        var order = inOrder(cardRepository, ledgerEntryRepository);
+        order.verify(cardRepository).lockCardsForLedger(List.of(CARD_ID));
+        order.verify(ledgerEntryRepository).compact(CARD_ID);
+    }
+
+
+    @Test
+    void settle_appliesPendingEntries() {
+        var card = Card.builder().id(CARD_ID).balance(new BigDecimal("1000.00")).build();
+        var other = Card.builder().id(2L).balance(new BigDecimal("200.00")).build();
+
+        when(ledgerEntryRepository.applyPendingEntries(anyCollection()))
+                .thenReturn(List.of(pendingTotal(CARD_ID, new BigDecimal("500.00"))));
+
+        ledgerService.settle(List.of(card, other));
+
+        assertEquals(new BigDecimal("1500.00"), card.getBalance());
+        assertEquals(new BigDecimal("200.00"), other.getBalance());
+        assertEquals(new BigDecimal("1500.00"), card.getAvailableBalance());
+
+        verify(ledgerEntryRepository).applyPendingEntries(List.of(CARD_ID, 2L));
+
+        verifyNoInteractions(cardRepository);
+    }
+
+
+    @Test
+    void move_updatesBalancesAndReturnsAppliedEntries() {
+        var from = Card.builder().id(CARD_ID).balance(new BigDecimal("1000.00")).build();
+        var to = Card.builder().id(2L).balance(new BigDecimal("200.00")).build();
+
+        var entries = ledgerService.move(from, to, new BigDecimal("300"));
+
+        assertEquals(new BigDecimal("700.00"), from.getBalance());
+        assertEquals(new BigDecimal("500.00"), to.getBalance());
+        assertEquals(2, entries.size());
+        assertEquals(LedgerOperation.TRANSFER_OUT, entries.get(0).getOperation());
+        assertEquals(new BigDecimal("-300.00"), entries.get(0).getAmount());
+        assertEquals(LedgerOperation.TRANSFER_IN, entries.get(1).getOperation());
+        assertEquals(2L, entries.get(1).getCardId());
+        assertTrue(entries.stream().allMatch(CardLedgerEntry::isApplied));
+
+        verifyNoMoreInteractions(ledgerEntryRepository, cardRepository);
+    }
+
+
+    @Test
+    void record_insertsAllEntriesInOneStatement() {
+        var from = Card.builder().id(CARD_ID).balance(new BigDecimal("1000.00")).build();
+        var to = Card.builder().id(2L).balance(new BigDecimal("200.00")).build();
+
+        ledgerService.record(ledgerService.move(from, to, new BigDecimal("300")));
+
+        verify(ledgerEntryRepository).appendEntries(
+                new Long[]{CARD_ID, 2L},
+                new String[]{"TRANSFER_OUT", "TRANSFER_IN"},
+                new BigDecimal[]{new BigDecimal("-300.00"), new BigDecimal("300.00")},
+                new Boolean[]{true, true});
+
+        verifyNoMoreInteractions(ledgerEntryRepository, cardRepository);
+    }
+
+
+    @Test
+    void record_noEntries_skipsInsert() {
+        ledgerService.record(List.of());
+
+        verifyNoInteractions(ledgerEntryRepository, cardRepository);
+    }
+
+
+    private PendingTotal pendingTotal(Long cardId, BigDecimal amount) {
+        return new PendingTotal() {
+            @Override
+            public Long getCardId() {
+                return cardId;
+            }
+
+            @Override
+            public BigDecimal getAmount() {
+                return amount;
+            }
+        };
+    }
+}
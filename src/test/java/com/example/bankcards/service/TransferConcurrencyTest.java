@@ -0,0 +1,152 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.PostgresIntegrationTest;
+import com.example.bankcards.SqlCapture;
+import com.example.bankcards.dto.card.TransferBatchDto;
+import com.example.bankcards.dto.card.TransferBatchResponseDto;
+import com.example.bankcards.dto.card.TransferDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TransferConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("10000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    @Autowired
+    private UserCardService userCardService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+    private Card first;
+    private Card second;
+
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.getUserByPhoneNumber("8005553535").orElseThrow();
+
+        first = cardRepository.save(newCard());
+        second = cardRepository.save(newCard());
+    }
+
+
+    @Test
+    void transferToOwnCard_bidirectional_keepsTotalBalance(TestReporter reporter) throws Exception {
+        var pool = Executors.newFixedThreadPool(THREADS);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            var forward = i % 2 == 0;
+
+            tasks.add(() -> {
+                for (int j = 0; j < TRANSFERS_PER_THREAD; j++) {
+                    var dto = forward
+                            ? new TransferDto(first.getId(), second.getId(), AMOUNT)
+                            : new TransferDto(second.getId(), first.getId(), AMOUNT);
+
+                    userCardService.transferToOwnCard(user.getId(), dto);
+                }
+
+                return TRANSFERS_PER_THREAD;
+            });
+        }
+
+        var started = System.nanoTime();
+        var completed = 0;
+
+        for (Future<Integer> result : pool.invokeAll(tasks)) {
+            completed += result.get();
+        }
+
+        var elapsedNanos = System.nanoTime() - started;
+
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        var firstBalance = ledgerService.compact(first.getId());
+        var secondBalance = ledgerService.compact(second.getId());
+
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, completed);
+        assertEquals(INITIAL_BALANCE.add(INITIAL_BALANCE), firstBalance.add(secondBalance));
+        assertEquals(0.0, meterRegistry.counter("card.transfer.retries.exhausted").count());
+
+        reporter.publishEntry("transfersPerSecond",
+                String.valueOf(completed * TimeUnit.SECONDS.toNanos(1) / elapsedNanos));
+        reporter.publishEntry("retries",
+                String.valueOf(meterRegistry.counter("card.transfer.retries").count()));
+    }
+
+
+    @Test
+    void transferBatch_thousandLegs_appliedInOneTransaction(TestReporter reporter) {
+        List<TransferDto> transfers = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            transfers.add(i % 2 == 0
+                    ? new TransferDto(first.getId(), second.getId(), AMOUNT)
+                    : new TransferDto(second.getId(), first.getId(), AMOUNT));
+        }
+
+        var result = new AtomicReference<TransferBatchResponseDto>();
+        var started = System.nanoTime();
+        var statements = SqlCapture.capture(
+                () -> result.set(userCardService.transferBatch(user.getId(), new TransferBatchDto(transfers))));
+        var elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertEquals(1000, result.get().succeeded());
+        assertEquals(1, statements.stream()
+                .filter(sql -> sql.startsWith("insert into card_ledger_entries"))
+                .count());
+        assertEquals(INITIAL_BALANCE, ledgerService.compact(first.getId()));
+        assertEquals(INITIAL_BALANCE, ledgerService.compact(second.getId()));
+
+        reporter.publishEntry("batchMillis", String.valueOf(elapsedMillis));
+    }
+
+
+    private Card newCard() {
+        return Card.builder()
+                .cardNumber(String.valueOf(ThreadLocalRandom.current().nextLong(1_000_000_000_000_000L, 10_000_000_000_000_000L)))
+                .placeholder("Oleg Tinkoff")
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .balance(INITIAL_BALANCE)
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.exception.CardOperationFailedException;
+import com.example.bankcards.exception.ConcurrentOperationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferExecutorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransferExecutor transferExecutor;
+
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        meterRegistry = new SimpleMeterRegistry();
+        transferExecutor = new TransferExecutor(transactionManager, meterRegistry);
+
+        ReflectionTestUtils.setField(transferExecutor, "maxAttempts", 3);
+        ReflectionTestUtils.setField(transferExecutor, "backoff", 0L);
+    }
+
+
+    @Test
+    void execute_success() {
+        var calls = new AtomicInteger();
+
+        transferExecutor.execute(calls::incrementAndGet);
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.counter("card.transfer.retries").count());
+
+        verify(transactionManager).commit(any());
+    }
+
+
+    @Test
+    void execute_deadlockThenSuccess_retries() {
+        var calls = new AtomicInteger();
+
+        transferExecutor.execute(() -> {
+            if (calls.incrementAndGet() == 1)
+                throw new CannotAcquireLockException("deadlock detected");
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.counter("card.transfer.retries").count());
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+    }
+
+
+    @Test
+    void execute_retriesExhausted_throwsException() {
+        var calls = new AtomicInteger();
+
+        var ex = assertThrows(ConcurrentOperationException.class,
+                () -> transferExecutor.execute(() -> {
+                    calls.incrementAndGet();
+                    throw new CannotAcquireLockException("deadlock detected");
+                }));
+
+        assertEquals("Операция отклонена из-за параллельного изменения карты. Повторите попытку позже",
+                ex.getMessage());
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.counter("card.transfer.retries").count());
+        assertEquals(1.0, meterRegistry.counter("card.transfer.retries.exhausted").count());
+
+        verify(transactionManager, times(3)).rollback(any());
+    }
+
+
+    @Test
+    void execute_businessFailure_notRetried() {
+        var calls = new AtomicInteger();
+
+        assertThrows(CardOperationFailedException.class,
+                () -> transferExecutor.execute(() -> {
+                    calls.incrementAndGet();
+                    throw new CardOperationFailedException("Недостаточно средств на карте");
+                }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0.0, meterRegistry.counter("card.transfer.retries").count());
+    }
+}
@@ -5,9 +5,12 @@ import com.example.bankcards.dto.card.FundsDto;
 import com.example.bankcards.dto.card.PageCardResponseDto;
 import com.example.bankcards.dto.card.RequestCardBlockDto;
 import com.example.bankcards.dto.card.ResponseCardBlockDto;
+import com.example.bankcards.dto.card.TransferBatchDto;
 import com.example.bankcards.dto.card.TransferDto;
+import com.example.bankcards.dto.card.TransferResultDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.LedgerOperation;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.CardNotFoundException;
@@ -16,6 +19,8 @@ import com.example.bankcards.exception.CardStatusException;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.CardView;
+import com.example.bankcards.util.Encryptor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -33,16 +38,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -63,7 +71,13 @@ class UserCardServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private StatusChanger statusChanger;
+    private LedgerService ledgerService;
+
+    @Mock
+    private TransferExecutor transferExecutor;
+
+    @Mock
+    private Encryptor encryptor;
 
     @InjectMocks
     private UserCardService userCardService;
@@ -150,10 +164,11 @@ class UserCardServiceTest {
     void deposit_success() {
         var funds = new FundsDto(new BigDecimal("5000.00"));
 
-        when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
-                .thenReturn(Optional.of(card));
+        when(ledgerService.credit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(true);
 
-        when(cardRepository.saveAndFlush(any(Card.class))).thenReturn(card);
+        when(cardRepository.getBalanceByCardIdAndUserId(anyLong(), anyLong()))
+                .thenReturn(Optional.of(new BigDecimal("40000.00")));
 
         var result = userCardService.deposit(USER_ID, CARD_ID, funds);
 
@@ -163,12 +178,10 @@ class UserCardServiceTest {
                         """,
                 result);
 
-        assertEquals(0, new BigDecimal("40000.00").compareTo(card.getBalance()));
-
-        verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
-        verify(cardRepository).saveAndFlush(card);
+        verify(ledgerService).credit(CARD_ID, USER_ID, funds.funds(), LedgerOperation.DEPOSIT);
+        verify(cardRepository).getBalanceByCardIdAndUserId(CARD_ID, USER_ID);
 
-        verifyNoMoreInteractions(statusChanger);
+        verifyNoMoreInteractions(cardRepository);
     }
 
 
@@ -176,6 +189,9 @@ class UserCardServiceTest {
     void deposit_cardNotFound_throwsException() {
         var funds = new FundsDto(new BigDecimal("5000.00"));
 
+        when(ledgerService.credit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(false);
+
         when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
                 .thenReturn(Optional.empty());
 
@@ -191,6 +207,9 @@ class UserCardServiceTest {
         var funds = new FundsDto(new BigDecimal("5000.00"));
         card.setStatus(CardStatus.BLOCKED);
 
+        when(ledgerService.credit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(false);
+
         when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
                 .thenReturn(Optional.of(card));
 
@@ -209,6 +228,9 @@ class UserCardServiceTest {
         var funds = new FundsDto(new BigDecimal("5000.00"));
         card.setStatus(CardStatus.EXPIRED);
 
+        when(ledgerService.credit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(false);
+
         when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
                 .thenReturn(Optional.of(card));
 
@@ -223,28 +245,24 @@ class UserCardServiceTest {
 
 
     @Test
-    void deposit_changeToExpired_throwsException() {
+    void deposit_expirationDatePassed_throwsException() {
         var funds = new FundsDto(new BigDecimal("5000.00"));
         card.setExpirationDate(LocalDate.now().minusMonths(1));
 
+        when(ledgerService.credit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(false);
+
         when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
                 .thenReturn(Optional.of(card));
 
-        doAnswer(i -> {
-            card.setStatus(CardStatus.EXPIRED);
-            return null;
-        })
-                .when(statusChanger).changeStatus(eq(CARD_ID));
-
         var ex = assertThrows(CardStatusException.class,
                 () -> userCardService.deposit(USER_ID, CARD_ID, funds));
 
         assertEquals("Срок действия карты истек. Обратитесь в службу поддержки", ex.getMessage());
 
-        assertSame(CardStatus.EXPIRED, card.getStatus());
+        assertSame(CardStatus.ACTIVE, card.getStatus());
 
         verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
-        verify(statusChanger).changeStatus(CARD_ID);
     }
 
 
@@ -252,10 +270,8 @@ class UserCardServiceTest {
     void withdraw_success() {
         var funds = new FundsDto(new BigDecimal("5000.00"));
 
-        when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
-                .thenReturn(Optional.of(card));
-
-        when(cardRepository.saveAndFlush(any(Card.class))).thenReturn(card);
+        when(ledgerService.debit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(Optional.of(new BigDecimal("30000.00")));
 
         var result = userCardService.withdraw(USER_ID, CARD_ID, funds);
 
@@ -265,12 +281,9 @@ class UserCardServiceTest {
                         """,
                 result);
 
-        assertEquals(0, new BigDecimal("30000.00").compareTo(card.getBalance()));
-
-        verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
-        verify(cardRepository).saveAndFlush(card);
+        verify(ledgerService).debit(CARD_ID, USER_ID, funds.funds(), LedgerOperation.WITHDRAWAL);
 
-        verifyNoMoreInteractions(statusChanger);
+        verifyNoMoreInteractions(cardRepository);
     }
 
 
@@ -278,6 +291,9 @@ class UserCardServiceTest {
     void withdraw_insufficientFunds_throwException() {
         var funds = new FundsDto(new BigDecimal("50000.00"));
 
+        when(ledgerService.debit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(Optional.empty());
+
         when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
                 .thenReturn(Optional.of(card));
 
@@ -285,11 +301,31 @@ class UserCardServiceTest {
                 () -> userCardService.withdraw(USER_ID, CARD_ID, funds));
 
         assertEquals("Недостаточно средств на карте", ex.getMessage());
-        assertEquals(0, new BigDecimal("35000.00").compareTo(card.getBalance()));
 
-        verify(cardRepository).findCardByCardIdAndUserId(USER_ID, CARD_ID);
+        verify(ledgerService).debit(CARD_ID, USER_ID, funds.funds(), LedgerOperation.WITHDRAWAL);
+        verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
 
-        verifyNoMoreInteractions(statusChanger, cardRepository);
+        verifyNoMoreInteractions(cardRepository, ledgerService);
+    }
+
+
+    @Test
+    void withdraw_blocked_throwsException() {
+        var funds = new FundsDto(new BigDecimal("5000.00"));
+        card.setStatus(CardStatus.BLOCKED);
+
+        when(ledgerService.debit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(Optional.empty());
+
+        when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
+                .thenReturn(Optional.of(card));
+
+        var ex = assertThrows(CardStatusException.class,
+                () -> userCardService.withdraw(USER_ID, CARD_ID, funds));
+
+        assertEquals("Операция отклонена. Карта заблокирована", ex.getMessage());
+
+        verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
     }
 
 
@@ -314,18 +350,31 @@ class UserCardServiceTest {
         when(cardRepository.findCardByCardIdAndUserId(eq(TO_CARD_ID), anyLong()))
                 .thenReturn(Optional.of(toCard));
 
+        when(cardRepository.findCardsForUpdate(anyList(), anyLong()))
+                .thenReturn(List.of(card, toCard));
+
+        doAnswer(i -> {
+            i.<Runnable>getArgument(0).run();
+            return null;
+        })
+                .when(transferExecutor).execute(any(Runnable.class));
+
+        when(ledgerService.debit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(Optional.of(new BigDecimal("28000.00")));
+
+        when(ledgerService.credit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(true);
+
         var result = userCardService.transferToOwnCard(USER_ID, transferDto);
 
         assertEquals("Совершен перевод 7000.00 рублей с карты **** **** **** 7221 на карту **** **** **** 1566",
                 result);
 
-        assertEquals(0, new BigDecimal("28000.00").compareTo(card.getBalance()));
-        assertEquals(0, new BigDecimal("8000.00").compareTo(toCard.getBalance()));
-
         verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
         verify(cardRepository).findCardByCardIdAndUserId(TO_CARD_ID, USER_ID);
-
-        verifyNoMoreInteractions(statusChanger);
+        verify(cardRepository).findCardsForUpdate(List.of(CARD_ID, TO_CARD_ID), USER_ID);
+        verify(ledgerService).debit(CARD_ID, USER_ID, transferDto.funds(), LedgerOperation.TRANSFER_OUT);
+        verify(ledgerService).credit(TO_CARD_ID, USER_ID, transferDto.funds(), LedgerOperation.TRANSFER_IN);
     }
 
 
@@ -333,18 +382,13 @@ class UserCardServiceTest {
     void transferToOwnCard_sameCard_throwsException() {
         var transferDto = new TransferDto(CARD_ID, CARD_ID, new BigDecimal("7000.00"));
 
-        when(cardRepository.findCardByCardIdAndUserId(anyLong(), anyLong()))
-                .thenReturn(Optional.of(card));
-
         var ex = assertThrows(CardOperationFailedException.class,
                 () -> userCardService.transferToOwnCard(USER_ID, transferDto));
 
         assertEquals("Вы пытаетесь перевести деньги на ту же карту, с которой отправляете. \nВозможно, вы ошиблись.",
                 ex.getMessage());
 
-        verify(cardRepository, times(2)).findCardByCardIdAndUserId(CARD_ID, USER_ID);
-
-        verifyNoMoreInteractions(statusChanger);
+        verifyNoMoreInteractions(cardRepository, ledgerService, transferExecutor);
     }
 
 
@@ -363,32 +407,133 @@ class UserCardServiceTest {
                 .placeholder("Иван Иванов")
                 .build();
 
-        card.setBalance(BigDecimal.ONE);
-
         when(cardRepository.findCardByCardIdAndUserId(eq(CARD_ID), anyLong()))
                 .thenReturn(Optional.of(card));
 
         when(cardRepository.findCardByCardIdAndUserId(eq(TO_CARD_ID), anyLong()))
                 .thenReturn(Optional.of(toCard));
 
+        when(cardRepository.findCardsForUpdate(anyList(), anyLong()))
+                .thenReturn(List.of(card, toCard));
+
+        doAnswer(i -> {
+            i.<Runnable>getArgument(0).run();
+            return null;
+        })
+                .when(transferExecutor).execute(any(Runnable.class));
+
+        when(ledgerService.debit(anyLong(), anyLong(), any(BigDecimal.class), any(LedgerOperation.class)))
+                .thenReturn(Optional.empty());
+
         var ex = assertThrows(CardOperationFailedException.class,
                 () -> userCardService.transferToOwnCard(USER_ID, transferDto));
 
         assertEquals("Недостаточно средств на карте", ex.getMessage());
-        assertEquals(0, BigDecimal.ONE.compareTo(card.getBalance()));
-        assertEquals(0, new BigDecimal("1000.00").compareTo(toCard.getBalance()));
 
         verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
         verify(cardRepository).findCardByCardIdAndUserId(TO_CARD_ID, USER_ID);
+        verify(cardRepository).findCardsForUpdate(List.of(CARD_ID, TO_CARD_ID), USER_ID);
+        verify(ledgerService).debit(CARD_ID, USER_ID, transferDto.funds(), LedgerOperation.TRANSFER_OUT);
 
-        verifyNoMoreInteractions(statusChanger);
+        verifyNoMoreInteractions(ledgerService);
+    }
+
+
+    @Test
+    void transferToOwnCard_blockedWhileLocking_throwsException() {
+        var transferDto = new TransferDto(CARD_ID, TO_CARD_ID, new BigDecimal("7000.00"));
+
+        var toCard = Card.builder()
+                .id(TO_CARD_ID)
+                .last4("1566")
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .balance(new BigDecimal("1000.00"))
+                .user(user)
+                .cardNumber("5818215397521566")
+                .placeholder("Иван Иванов")
+                .build();
+
+        var lockedToCard = Card.builder()
+                .id(TO_CARD_ID)
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.BLOCKED)
+                .build();
+
+        when(cardRepository.findCardByCardIdAndUserId(eq(CARD_ID), anyLong()))
+                .thenReturn(Optional.of(card));
+
+        when(cardRepository.findCardByCardIdAndUserId(eq(TO_CARD_ID), anyLong()))
+                .thenReturn(Optional.of(toCard));
+
+        when(cardRepository.findCardsForUpdate(anyList(), anyLong()))
+                .thenReturn(List.of(card, lockedToCard));
+
+        doAnswer(i -> {
+            i.<Runnable>getArgument(0).run();
+            return null;
+        })
+                .when(transferExecutor).execute(any(Runnable.class));
+
+        var ex = assertThrows(CardOperationFailedException.class,
+                () -> userCardService.transferToOwnCard(USER_ID, transferDto));
+
+        assertEquals("Операция отклонена. Повторите попытку позже", ex.getMessage());
+
+        verifyNoMoreInteractions(ledgerService);
+    }
+
+
+    @Test
+    void transferBatch_mixedResults() {
+        var toCard = Card.builder()
+                .id(TO_CARD_ID)
+                .last4("1566")
+                .expirationDate(LocalDate.now().plusYears(5))
+                .status(CardStatus.ACTIVE)
+                .balance(new BigDecimal("1000.00"))
+                .user(user)
+                .build();
+
+        var batchDto = new TransferBatchDto(List.of(
+                new TransferDto(CARD_ID, TO_CARD_ID, new BigDecimal("7000.00")),
+                new TransferDto(CARD_ID, CARD_ID, new BigDecimal("100.00")),
+                new TransferDto(CARD_ID, 99L, new BigDecimal("100.00")),
+                new TransferDto(TO_CARD_ID, CARD_ID, new BigDecimal("50000.00"))
+        ));
+
+        when(transferExecutor.executeAndGet(any()))
+                .thenAnswer(i -> i.<Supplier<?>>getArgument(0).get());
+
+        when(cardRepository.findCardsForUpdate(anyCollection(), anyLong()))
+                .thenReturn(List.of(card, toCard));
+
+        when(ledgerService.move(any(Card.class), any(Card.class), any(BigDecimal.class)))
+                .thenReturn(List.of());
+
+        var result = userCardService.transferBatch(USER_ID, batchDto);
+
+        assertEquals(1, result.succeeded());
+        assertEquals(3, result.failed());
+        assertEquals(List.of(true, false, false, false),
+                result.results().stream().map(TransferResultDto::success).toList());
+        assertEquals("Перевод выполнен", result.results().get(0).message());
+        assertEquals("Карта не найдена", result.results().get(2).message());
+        assertEquals("Недостаточно средств на карте", result.results().get(3).message());
+
+        verify(cardRepository).findCardsForUpdate(new TreeSet<>(List.of(CARD_ID, TO_CARD_ID, 99L)), USER_ID);
+        verify(ledgerService).settle(anyCollection());
+        verify(ledgerService).move(card, toCard, new BigDecimal("7000.00"));
+        verify(ledgerService).record(List.of());
+
+        verifyNoMoreInteractions(ledgerService);
     }
 
 
     @Test
     void searchUserCards_success() {
         var pageable = PageRequest.of(0, 3);
-        var page = new PageImpl<>(List.of(card), pageable, 1);
+        var page = new PageImpl<>(List.of(cardView(card.getLast4())), pageable, 1);
 
         var cardResponse = CardResponseDto.builder()
                 .id(CARD_ID)
@@ -407,12 +552,14 @@ class UserCardServiceTest {
                 .totalPages(1)
                 .totalElements(1L)
                 .last(true)
+                .approximateTotal(false)
                 .build();
 
         when(userRepository.existsById(anyLong())).thenReturn(true);
         when(cardRepository.findUserCards(
                 any(Pageable.class), anyLong(), anyLong(), anyString(), any(CardStatus.class))
         ).thenReturn(page);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
 
         var result = userCardService.searchUserCards(
                 pageable, USER_ID, CARD_ID, card.getLast4(), CardStatus.ACTIVE
@@ -444,11 +591,12 @@ class UserCardServiceTest {
 
     @Test
     void maskCard_success_hiddenCard() {
-        Page<Card> page = new PageImpl<>(List.of(card));
+        Page<CardView> page = new PageImpl<>(List.of(cardView("7221")));
 
         when(userRepository.existsById(any())).thenReturn(true);
         when(cardRepository.findUserCards(any(), any(), any(), any(), any()))
                 .thenReturn(page);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
 
         var result = userCardService.searchUserCards(null, null, null, null, null);
 
@@ -458,12 +606,12 @@ class UserCardServiceTest {
 
     @Test
     void maskCard_success_fullHiddenCard() {
-        card.setCardNumber("12345");
-        Page<Card> page = new PageImpl<>(List.of(card));
+        Page<CardView> page = new PageImpl<>(List.of(cardView("12")));
 
         when(userRepository.existsById(any())).thenReturn(true);
         when(cardRepository.findUserCards(any(), any(), any(), any(), any()))
                 .thenReturn(page);
+        when(encryptor.decrypt(anyString())).thenReturn(card.getPlaceholder());
 
         var result = userCardService.searchUserCards(null, null, null, null, null);
 
@@ -472,9 +620,8 @@ class UserCardServiceTest {
 
 
     @Test
-    void maskCard_cardNumberIsNull_throwsException() {
-        card.setCardNumber(null);
-        Page<Card> page = new PageImpl<>(List.of(card));
+    void maskCard_last4IsNull_throwsException() {
+        Page<CardView> page = new PageImpl<>(List.of(cardView(null)));
 
         when(userRepository.existsById(any())).thenReturn(true);
         when(cardRepository.findUserCards(any(), any(), any(), any(), any()))
@@ -484,7 +631,7 @@ class UserCardServiceTest {
                 () -> userCardService.searchUserCards(null, null, null, null, null));
 
 
-        assertEquals("Неверное значение строки cardNumber: null или пустая строка", ex.getMessage());
+        assertEquals("Неверное значение строки last4: null или пустая строка", ex.getMessage());
     }
 
 
@@ -562,4 +709,10 @@ class UserCardServiceTest {
 
         verify(cardRepository).findCardByCardIdAndUserId(CARD_ID, USER_ID);
     }
-}
\ No newline at end of file
+
+
+    private CardView cardView(String last4) {
+        return new CardView(CARD_ID, last4, "encrypted_placeholder", card.getExpirationDate(),
+                card.getStatus(), card.getBalance(), USER_ID);
+    }
+}
@@ -12,17 +12,25 @@ import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.RoleRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.repository.projection.UserView;
+import com.example.bankcards.security.PrincipalCache;
+import com.example.bankcards.security.RevokedUserRegistry;
+import com.example.bankcards.util.PageCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +39,7 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -38,6 +47,7 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.argThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -63,6 +73,15 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private RevokedUserRegistry revokedUserRegistry;
+
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
     @InjectMocks
     private UserService userService;
 
@@ -159,7 +178,7 @@ class UserServiceTest {
 
         when(userRepository.findAll(any(Pageable.class))).thenReturn(page);
 
-        PageUserResponseDto result = userService.getAllUsers(PageRequest.of(0, 3));
+        PageUserResponseDto result = userService.getAllUsers(PageRequest.of(0, 3), true, false);
         UserResponseDto actualDto = result.content().get(0);
 
         assertAll(() -> {
@@ -179,6 +198,40 @@ class UserServiceTest {
     }
 
 
+    @Test
+    void getAllUsers_withoutTotal_noCountQuery() {
+        var pageable = PageRequest.of(0, 1);
+
+        when(userRepository.findUserSlice(any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(userView()), pageable, false));
+
+        var result = userService.getAllUsers(pageable, false, false);
+
+        assertEquals(List.of(userResponseDto), result.content());
+        assertNull(result.totalElements());
+        assertTrue(result.last());
+
+        verify(userRepository).findUserSlice(pageable);
+
+        verifyNoMoreInteractions(userRepository);
+    }
+
+
+    @Test
+    void getAllUsersAfter_hasNextPage() {
+        var next = new UserView(2L, "Петр", "Петров", "9267654321");
+
+        when(userRepository.findUsersAfter(anyLong(), any(Limit.class))).thenReturn(List.of(userView(), next));
+
+        var result = userService.getAllUsersAfter(null, 1);
+
+        assertEquals(List.of(userResponseDto), result.content());
+        assertEquals(PageCursor.encode(1L), result.next());
+
+        verify(userRepository).findUsersAfter(0L, Limit.of(2));
+    }
+
+
     @Test
     void getUserById_success() {
         when((userRepository.findById(anyLong()))).thenReturn(Optional.of(user));
@@ -247,6 +300,7 @@ class UserServiceTest {
         );
 
         verify(cardRepository).saveAll(user.getCards());
+        verify(principalCache).evictByUserId(1L);
     }
 
 
@@ -277,6 +331,8 @@ class UserServiceTest {
 
         verify(userRepository).existsById(1L);
         verify(userRepository).deleteById(1L);
+        verify(principalCache).evictByUserId(1L);
+        verify(revokedUserRegistry).revoke(1L);
     }
 
     @Test
@@ -289,5 +345,11 @@ class UserServiceTest {
         assertEquals(USER_NOT_FOUND_MESSAGE, ex.getMessage());
 
         verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(principalCache, revokedUserRegistry);
+    }
+
+
+    private UserView userView() {
+        return new UserView(user.getId(), user.getFirstName(), user.getLastName(), user.getPhoneNumber());
     }
-}
\ No newline at end of file
+}
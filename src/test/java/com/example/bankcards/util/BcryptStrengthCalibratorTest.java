@@ -0,0 +1,31 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BcryptStrengthCalibratorTest {
+
+    @Test
+    void calibrate_targetBelowMinimumCost_returnsMinStrength() {
+        assertEquals(4, BcryptStrengthCalibrator.calibrate(Duration.ofNanos(1), 4, 12));
+    }
+
+
+    @Test
+    void calibrate_generousTarget_cappedAtMaxStrength() {
+        assertEquals(8, BcryptStrengthCalibrator.calibrate(Duration.ofHours(1), 4, 8));
+    }
+
+
+    @Test
+    void calibrate_invalidRange_throwsException() {
+        var ex = assertThrows(IllegalArgumentException.class,
+                () -> BcryptStrengthCalibrator.calibrate(Duration.ofMillis(250), 12, 10));
+
+        assertEquals("Некорректный диапазон стоимости BCrypt: 12..10", ex.getMessage());
+    }
+}
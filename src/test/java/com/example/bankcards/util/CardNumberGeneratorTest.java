@@ -0,0 +1,84 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardNumberGeneratorTest {
+
+    private static final String BIN = "220070";
+
+    private final CardNumberGenerator generator = new CardNumberGenerator(BIN, "test-secret");
+
+
+    @Test
+    void generate_producesLuhnValidNumberUnderBin() {
+        var cardNumber = generator.generate(1L);
+
+        assertEquals(16, cardNumber.length());
+        assertTrue(cardNumber.startsWith(BIN));
+        assertTrue(isLuhnValid(cardNumber));
+    }
+
+
+    @Test
+    void generate_distinctSequencesGiveDistinctNumbers() {
+        var numbers = new HashSet<String>();
+
+        LongStream.range(0, 200_000).forEach(sequence -> numbers.add(generator.generate(sequence)));
+
+        assertEquals(200_000, numbers.size());
+        assertTrue(numbers.stream().allMatch(CardNumberGeneratorTest::isLuhnValid));
+    }
+
+
+    @Test
+    void generate_deterministicPerSecret() {
+        var other = new CardNumberGenerator(BIN, "other-secret");
+
+        assertEquals(generator.generate(7L), generator.generate(7L));
+        assertNotEquals(generator.generate(7L), other.generate(7L));
+        assertNotEquals("220070000000007", generator.generate(7L).substring(0, 15));
+    }
+
+
+    @Test
+    void generate_sequenceOutOfRange_throwsException() {
+        var ex = assertThrows(IllegalStateException.class, () -> generator.generate(1_000_000_000L));
+
+        assertEquals("Исчерпан диапазон номеров карт для BIN 220070", ex.getMessage());
+    }
+
+
+    @Test
+    void constructor_invalidBin_throwsException() {
+        var ex = assertThrows(IllegalArgumentException.class, () -> new CardNumberGenerator("2200", "test-secret"));
+
+        assertEquals("BIN должен состоять из 6 цифр", ex.getMessage());
+    }
+
+
+    private static boolean isLuhnValid(String number) {
+        var sum = 0;
+
+        for (int i = 0; i < number.length(); i++) {
+            var digit = number.charAt(number.length() - 1 - i) - '0';
+
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9)
+                    digit -= 9;
+            }
+
+            sum += digit;
+        }
+
+        return sum % 10 == 0;
+    }
+}
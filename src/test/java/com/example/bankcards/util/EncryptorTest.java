@@ -0,0 +1,64 @@
+package com.example.bankcards.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptorTest {
+
+    private static final String SECRET = "unit-secret";
+    private static final String CARD_NUMBER = "2502551189197221";
+
+    private final Encryptor encryptor = new Encryptor(SECRET);
+
+
+    @Test
+    void encrypt_roundTrip() {
+        var encrypted = encryptor.encrypt("Олег Тиньков");
+
+        assertTrue(encryptor.isCurrent(encrypted));
+        assertEquals("Олег Тиньков", encryptor.decrypt(encrypted));
+    }
+
+
+    @Test
+    void encrypt_randomIv_differentCipherTexts() {
+        assertNotEquals(encryptor.encrypt(CARD_NUMBER), encryptor.encrypt(CARD_NUMBER));
+    }
+
+
+    @Test
+    void decrypt_legacyValue() {
+        var legacy = Base64.getEncoder().encodeToString((CARD_NUMBER + SECRET).getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(encryptor.isCurrent(legacy));
+        assertEquals(CARD_NUMBER, encryptor.decrypt(legacy));
+    }
+
+
+    @Test
+    void decrypt_tamperedValue_throwsException() {
+        var payload = Base64.getDecoder().decode(encryptor.encrypt(CARD_NUMBER).substring(3));
+        payload[payload.length - 1] ^= 1;
+        var tampered = "v1:" + Base64.getEncoder().encodeToString(payload);
+
+        assertThrows(IllegalStateException.class, () -> encryptor.decrypt(tampered));
+    }
+
+
+    @Test
+    void blindIndex_deterministicAndKeyed() {
+        var other = new Encryptor("other-secret");
+
+        assertEquals(encryptor.blindIndex(CARD_NUMBER), encryptor.blindIndex(CARD_NUMBER));
+        assertEquals(64, encryptor.blindIndex(CARD_NUMBER).length());
+        assertNotEquals(encryptor.blindIndex(CARD_NUMBER), other.blindIndex(CARD_NUMBER));
+    }
+}